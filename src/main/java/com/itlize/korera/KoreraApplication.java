@@ -2,8 +2,10 @@ package com.itlize.korera;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+//Transactions are JPA's, R2DBC is only used for the reactive reads, which run without one
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class KoreraApplication {
 
 	public static void main(String[] args) {
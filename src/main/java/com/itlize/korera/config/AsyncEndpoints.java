@@ -0,0 +1,112 @@
+package com.itlize.korera.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Turns a controller call into a WebAsyncTask on the endpoint executor. Every endpoint has its own
+ * limit of calls running or waiting and its own timeout, both answered with 503, so one slow
+ * endpoint cannot take the executor from the others.
+ * Meters: korera.async.queue timer, korera.async.rejected and korera.async.timeouts counters,
+ * all tagged with the endpoint.
+ */
+public class AsyncEndpoints {
+
+    private final AsyncTaskExecutor executor;
+    private final AsyncExecutionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Semaphore> pending = new ConcurrentHashMap<>();
+
+    public AsyncEndpoints(AsyncTaskExecutor executor, AsyncExecutionProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isAsync(String endpoint) {
+        AsyncExecutionProperties.Endpoint settings = properties.getEndpoints().get(endpoint);
+        return settings == null || settings.getAsync() == null || settings.getAsync();
+    }
+
+    public WebAsyncTask<Object> submit(String endpoint, Callable<Object> call) {
+        Semaphore permits = pending.computeIfAbsent(endpoint, name -> new Semaphore(maxPending(name)));
+        if (!permits.tryAcquire()) {
+            Counter.builder("korera.async.rejected").tag("endpoint", endpoint).register(meterRegistry).increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many requests for " + endpoint + " at the moment, please try again.");
+        }
+        AtomicBoolean timedOut = new AtomicBoolean();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        long submitted = System.nanoTime();
+        Callable<Object> task = () -> {
+            try {
+                Timer.builder("korera.async.queue").tag("endpoint", endpoint).register(meterRegistry)
+                        .record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                //Nobody waits for the answer anymore, keep the connection for other calls
+                if (timedOut.get()) {
+                    return null;
+                }
+                //The request thread marks its attributes completed once it returns, the call gets its own
+                ServletRequestAttributes callAttributes = requestAttributes instanceof ServletRequestAttributes
+                        ? new ServletRequestAttributes(((ServletRequestAttributes) requestAttributes).getRequest(),
+                                ((ServletRequestAttributes) requestAttributes).getResponse())
+                        : null;
+                RequestContextHolder.setRequestAttributes(callAttributes != null ? callAttributes : requestAttributes);
+                try {
+                    return call.call();
+                } catch (Exception e) {
+                    //The timeout interrupts the call, and its result may be set before the timeout's own
+                    if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                        throw timeoutException(endpoint);
+                    }
+                    throw e;
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                    if (callAttributes != null) {
+                        callAttributes.requestCompleted();
+                    }
+                }
+            } finally {
+                permits.release();
+            }
+        };
+        WebAsyncTask<Object> asyncTask = new WebAsyncTask<>(timeout(endpoint), executor, task);
+        asyncTask.onTimeout(() -> {
+            timedOut.set(true);
+            Counter.builder("korera.async.timeouts").tag("endpoint", endpoint).register(meterRegistry).increment();
+            throw timeoutException(endpoint);
+        });
+        return asyncTask;
+    }
+
+    private static ResponseStatusException timeoutException(String endpoint) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, endpoint + " timed out, please try again.");
+    }
+
+    private int maxPending(String endpoint) {
+        AsyncExecutionProperties.Endpoint settings = properties.getEndpoints().get(endpoint);
+        return settings != null && settings.getMaxPending() != null ? settings.getMaxPending() : properties.getMaxPending();
+    }
+
+    private long timeout(String endpoint) {
+        AsyncExecutionProperties.Endpoint settings = properties.getEndpoints().get(endpoint);
+        return (settings != null && settings.getTimeout() != null ? settings.getTimeout() : properties.getTimeout())
+                .toMillis();
+    }
+}
@@ -0,0 +1,76 @@
+package com.itlize.korera.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in with korera.async.enabled: controller calls run on a bounded executor, so a slow database
+ * holds executor threads and connections, not Tomcat's request threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "korera.async.enabled", havingValue = "true")
+@EnableConfigurationProperties(AsyncExecutionProperties.class)
+@Slf4j // logs
+public class AsyncExecutionConfig {
+
+    @Bean
+    public AsyncTaskExecutor asyncEndpointExecutor(AsyncExecutionProperties properties,
+                                                   HikariDataSource primaryDataSource,
+                                                   ReplicaRoutingProperties replicaProperties) {
+        if (properties.isVirtualThreads()) {
+            ExecutorService virtualThreads = virtualThreadPerTaskExecutor();
+            if (virtualThreads != null) {
+                log.info("Running controller calls on virtual threads.");
+                return new TaskExecutorAdapter(virtualThreads);
+            }
+            log.warn("Virtual threads are not available on this runtime, using platform threads.");
+        }
+        int threads = properties.getThreads() > 0 ? properties.getThreads()
+                : primaryDataSource.getMaximumPoolSize() * (1 + replicaProperties.getReplicas().size());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("async-endpoint-");
+        executor.initialize();
+        log.info("Running controller calls on " + threads + " threads.");
+        return executor;
+    }
+
+    @Bean
+    public AsyncEndpoints asyncEndpoints(AsyncTaskExecutor asyncEndpointExecutor, AsyncExecutionProperties properties,
+                                         MeterRegistry meterRegistry) {
+        return new AsyncEndpoints(asyncEndpointExecutor, properties, meterRegistry);
+    }
+
+    @Bean
+    public WebMvcRegistrations asyncEndpointRegistrations(AsyncEndpoints asyncEndpoints) {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new AsyncRequestMappingHandlerAdapter(asyncEndpoints);
+            }
+        };
+    }
+
+    //Executors.newVirtualThreadPerTaskExecutor exists from Java 21 on, the build targets Java 11
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
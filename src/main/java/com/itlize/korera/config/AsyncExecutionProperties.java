@@ -0,0 +1,106 @@
+package com.itlize.korera.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties("korera.async")
+public class AsyncExecutionProperties {
+
+    //Run controller calls on the endpoint executor instead of the Tomcat request thread
+    private boolean enabled = false;
+
+    //Executor threads, 0 sizes it to the connection pools so every thread can hold a connection
+    private int threads = 0;
+
+    //Use a virtual thread per call when the runtime has them (Java 21+), platform threads otherwise
+    private boolean virtualThreads = false;
+
+    //Calls of one endpoint that may run or wait at once, further calls are answered with 503
+    private int maxPending = 100;
+
+    private Duration timeout = Duration.ofSeconds(30);
+
+    //Per endpoint overrides keyed by Controller.method, e.g. korera.async.endpoints[ResourceController.getResources]
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Map<String, Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public static class Endpoint {
+        private Boolean async;
+        private Integer maxPending;
+        private Duration timeout;
+
+        public Boolean getAsync() {
+            return async;
+        }
+
+        public void setAsync(Boolean async) {
+            this.async = async;
+        }
+
+        public Integer getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(Integer maxPending) {
+            this.maxPending = maxPending;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.itlize.korera.config;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Runs the application's controller methods through AsyncEndpoints. Arguments are still resolved
+ * on the request thread, only the call itself is handed to the endpoint executor. Spring MVC picks
+ * the return value handler from the actual value, so the returned WebAsyncTask is processed
+ * asynchronously, and on the async dispatch the ResponseEntity it produced is written as usual.
+ * Controllers keep their signatures.
+ */
+public class AsyncRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    private static final String CONTROLLER_PACKAGE = "com.itlize.korera.controller";
+
+    private final AsyncEndpoints asyncEndpoints;
+
+    public AsyncRequestMappingHandlerAdapter(AsyncEndpoints asyncEndpoints) {
+        this.asyncEndpoints = asyncEndpoints;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        Class<?> beanType = handlerMethod.getBeanType();
+        String endpoint = beanType.getSimpleName() + "." + handlerMethod.getMethod().getName();
+        //Reactive and streaming endpoints are asynchronous already
+        if (!beanType.isAnnotationPresent(RestController.class)
+                || !beanType.getPackage().getName().equals(CONTROLLER_PACKAGE)
+                || !ResponseEntity.class.isAssignableFrom(handlerMethod.getMethod().getReturnType())
+                || StreamingResponseBody.class.equals(ResolvableType.forMethodReturnType(handlerMethod.getMethod())
+                        .getGeneric(0).resolve())
+                || !asyncEndpoints.isAsync(endpoint)) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        return new AsyncInvocableHandlerMethod(handlerMethod, endpoint);
+    }
+
+    private class AsyncInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+        private final String endpoint;
+
+        private AsyncInvocableHandlerMethod(HandlerMethod handlerMethod, String endpoint) {
+            super(handlerMethod);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        protected Object doInvoke(Object... args) throws Exception {
+            return asyncEndpoints.submit(endpoint, () -> super.doInvoke(args));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.itlize.korera.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adds the time every connection is held, from getConnection to close, to the current request
+ * (see ConnectionHoldTimeFilter). Connections taken outside of a filtered request are not tracked.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+    public static final String HELD_NANOS_ATTRIBUTE = ConnectionHoldTimeDataSource.class.getName() + ".heldNanos";
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private static Connection track(Connection connection) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return connection;
+        }
+        AtomicLong held = (AtomicLong) attributes.getAttribute(HELD_NANOS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (held == null) {
+            return connection;
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        long acquired = System.nanoTime();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                        held.addAndGet(System.nanoTime() - acquired);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
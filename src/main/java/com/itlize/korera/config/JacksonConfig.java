@@ -0,0 +1,45 @@
+package com.itlize.korera.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.ProjectResourceRow;
+import com.itlize.korera.dto.ProjectResourceView;
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.dto.UserView;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Responses are the flat views of the dto package. Blackbird replaces Jackson's reflective getter calls
+ * with generated lambdas, and the view serializers are resolved at startup instead of on the first request.
+ */
+@Configuration
+public class JacksonConfig {
+
+    private static final List<Class<?>> VIEWS = Arrays.asList(UserView.class, ProjectView.class, ResourceView.class,
+            ColumnView.class, ProjectResourceView.class, ProjectResourceRow.class, KeysetPage.class);
+
+    //Picked up by Spring Boot's ObjectMapper
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    //Replaces Spring Boot's MappingJackson2HttpMessageConverter
+    @Bean
+    public MeteredJacksonHttpMessageConverter meteredJacksonHttpMessageConverter(ObjectMapper objectMapper,
+                                                                                 MeterRegistry meterRegistry) {
+        for (Class<?> view : VIEWS) {
+            objectMapper.canSerialize(view);
+        }
+        return new MeteredJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,199 @@
+package com.itlize.korera.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to a healthy read replica, round robin, and everything
+ * else to the primary. A replica is taken out of rotation while it lags more than maxReplicaLag behind
+ * the primary or cannot be reached, reads then fall back to the primary.
+ * Once a request has used the primary outside a read-only transaction its remaining reads stay on the
+ * primary, so it reads its own writes. Work outside a request stays on the primary for maxReplicaLag
+ * instead. The services run their existence checks and finders read-only, so only requests that write
+ * are pinned. All reads of a request go to the same replica while it is healthy, so a row an existence
+ * check found is also found by the finder that loads it.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the connection is only fetched once the
+ * transaction's read-only flag is known.
+ */
+@Slf4j // logs
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public static final String PINNED_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".pinned";
+    public static final String REPLICA_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".replica";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Long> pinnedUntil = new ThreadLocal<>();
+    private ScheduledExecutorService healthChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, String lagQuery, Duration maxLag) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    public void startHealthChecks(Duration interval) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    //Marks every replica up or down from its reachability and lag
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                long lag = StringUtils.hasText(lagQuery) ? lagSeconds(connection) : 0;
+                replica.setHealthy(lag <= maxLag.getSeconds(),
+                        lag == Long.MAX_VALUE ? "not replicating" : "lag of " + lag + "s");
+            } catch (SQLException | RuntimeException e) {
+                replica.setHealthy(false, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinToPrimary();
+        } else if (!pinnedToPrimary()) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            Object used = attributes == null ? null
+                    : attributes.getAttribute(REPLICA_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            int start = used != null ? (Integer) used
+                    : Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+            for (int i = 0; i < replicas.size(); i++) {
+                int index = (start + i) % replicas.size();
+                Replica replica = replicas.get(index);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    if (attributes != null) {
+                        attributes.setAttribute(REPLICA_ATTRIBUTE, index, RequestAttributes.SCOPE_REQUEST);
+                    }
+                    return connection;
+                } catch (SQLException e) {
+                    replica.setHealthy(false, e.getMessage());
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    private void pinToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        } else {
+            pinnedUntil.set(System.nanoTime() + maxLag.toNanos());
+        }
+    }
+
+    private boolean pinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            return attributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+        }
+        Long until = pinnedUntil.get();
+        if (until == null) {
+            return false;
+        } else if (System.nanoTime() - until < 0) {
+            return true;
+        }
+        //Pooled threads live on, the expired pin is not left behind on them
+        pinnedUntil.remove();
+        return false;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    //An empty result or no lag value means the database is not replicating (anymore), it may be far behind
+    private long lagSeconds(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return Long.MAX_VALUE;
+            }
+            long lag = resultSet.getLong(lagColumn(resultSet.getMetaData()));
+            return resultSet.wasNull() ? Long.MAX_VALUE : lag;
+        }
+    }
+
+    //SHOW REPLICA STATUS returns many columns, any other lag query is expected to return the lag first
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        return 1;
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void setHealthy(boolean healthy, String reason) {
+            if (this.healthy != healthy) {
+                log.warn("Read replica " + name + " is " + (healthy ? "back in rotation" : "out of rotation")
+                        + " (" + reason + ").");
+            }
+            this.healthy = healthy;
+        }
+    }
+}
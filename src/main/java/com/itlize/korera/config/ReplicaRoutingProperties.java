@@ -0,0 +1,84 @@
+package com.itlize.korera.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("korera.datasource")
+public class ReplicaRoutingProperties {
+
+    //Read replicas that serve read-only transactions, none means everything runs on the primary
+    private List<Replica> replicas = new ArrayList<>();
+
+    //A replica further behind the primary than this is skipped until it catches up
+    private Duration maxReplicaLag = Duration.ofSeconds(5);
+
+    //Query returning the replica lag in seconds, blank to only check that the replica is reachable
+    private String replicaLagQuery = "SHOW REPLICA STATUS";
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public Duration getMaxReplicaLag() {
+        return maxReplicaLag;
+    }
+
+    public void setMaxReplicaLag(Duration maxReplicaLag) {
+        this.maxReplicaLag = maxReplicaLag;
+    }
+
+    public String getReplicaLagQuery() {
+        return replicaLagQuery;
+    }
+
+    public void setReplicaLagQuery(String replicaLagQuery) {
+        this.replicaLagQuery = replicaLagQuery;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.dto.BatchOperation;
+import com.itlize.korera.service.BatchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/batch")
+@RequiredArgsConstructor
+public class BatchController {
+
+    @Autowired
+    private BatchService batchService;
+
+    //Controller/api to run many create and update operations in one request
+    @PostMapping
+    public ResponseEntity<?> execute(@RequestBody List<BatchOperation> operations,
+                                     @RequestParam(required = false) Integer subBatchSize){
+        try {
+            return ResponseEntity.ok(batchService.execute(operations, subBatchSize));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
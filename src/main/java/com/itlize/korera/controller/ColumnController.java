@@ -1,8 +1,11 @@
 package com.itlize.korera.controller;
 
+import com.itlize.korera.dto.BulkResult;
+import com.itlize.korera.dto.ColumnView;
 import com.itlize.korera.model.Column;
 import com.itlize.korera.model.ColumnType;
 import com.itlize.korera.model.Resource;
+import com.itlize.korera.repository.TableVersions;
 import com.itlize.korera.service.*;
 import com.itlize.korera.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
@@ -12,8 +15,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/column")
 @RequiredArgsConstructor
@@ -30,6 +36,10 @@ public class ColumnController {
     @Autowired
     private ProjectResourceService projectResourceService;
     @Autowired
+    private TableVersions tableVersions;
+    @Autowired
+    private JobService jobService;
+    @Autowired
     private AuthenticationManager authenticationManager;
     @Autowired
     private JwtUtil jwtTokenUtil;
@@ -40,7 +50,15 @@ public class ColumnController {
     @PostMapping("/create")
     public ResponseEntity<?> createColumn(@RequestBody Column column) {
         columnService.saveColumn(column);
-        return new ResponseEntity<>(column, HttpStatus.CREATED);
+        return new ResponseEntity<>(ColumnView.of(column), HttpStatus.CREATED);
+    }
+
+    //Controller/api to create many columns at once with batched inserts, 207 with the committed and
+    //failed rows when a chunk fails
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createColumns(@RequestBody List<Column> columns) {
+        BulkResult result = columnService.saveColumns(columns);
+        return new ResponseEntity<>(result, result.isComplete() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
     }
 
     //Controller/api to get column information based on content
@@ -51,7 +69,7 @@ public class ColumnController {
                     + columnService.findByContent(content).getContent()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(columnService.findByContent(content));
+        return ResponseEntity.ok().body(ColumnView.of(columnService.findByContent(content)));
     }
 
     //Controller/api to get column information based on column id
@@ -62,7 +80,7 @@ public class ColumnController {
                     + columnService.findById(id).getColumnId()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(columnService.findById(id));
+        return ResponseEntity.ok().body(ColumnView.of(columnService.findById(id)));
     }
 
     //Controller/api to get column information based on type
@@ -75,40 +93,51 @@ public class ColumnController {
         return ResponseEntity.ok().body(columnService.findColumnsByType(type));
     }
 
-    //Controller/api to get all the columns based on resource name
+    //Controller/api to get all the columns based on resource name, 304 without a query when If-None-Match is current
     @GetMapping("/getcolumns/{resourcename}")
-    public ResponseEntity<?> getColumnsByResourceName(@PathVariable String resourcename) {
-        return ResponseEntity.ok().body(columnService.getColumsByResource(resourcename));
+    public ResponseEntity<?> getColumnsByResourceName(@PathVariable String resourcename, WebRequest request) {
+        return Listings.respond(tableVersions, request, "columns/" + resourcename,
+                () -> columnService.getColumsByResource(resourcename), TableVersions.COLUMNS, TableVersions.RESOURCE);
     }
 
-    //Controller/api to get all the columns
+    //Controller/api to get all the columns, 304 without a query when If-None-Match is current
     @GetMapping("/getcolumns")
-    public ResponseEntity<?> getColumns() {
-        return ResponseEntity.ok().body(columnService.getColumns());
+    public ResponseEntity<?> getColumns(WebRequest request) {
+        return Listings.respond(tableVersions, request, "columns", columnService::getColumns,
+                TableVersions.COLUMNS, TableVersions.RESOURCE);
+    }
+
+    //Controller/api to get one page of columns, pass the returned nextPageToken as token to get the next one
+    @GetMapping("/page")
+    public ResponseEntity<?> getColumnsPage(@RequestParam(required = false) String token,
+                                            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok().body(columnService.getColumns(token, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     //Controller/api to update column content
     @PostMapping("/update/content/{content}/{newcontent}")
     public ResponseEntity<?> updateContent(@PathVariable String content, @PathVariable String newcontent) {
-        Column column = columnService.findByContent(content);
-        if (!columnService.columnContentExists(content)) {
+        try {
+            return new ResponseEntity<>(ColumnView.of(columnService.updateContent(content, newcontent)), HttpStatus.OK);
+        } catch (NullPointerException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Column content  \"" + content
                     + "\" does not exists!");
         }
-        columnService.updateContent(column, newcontent);
-        return new ResponseEntity<>(column, HttpStatus.OK);
     }
 
     //Controller/api to update column's type
     @PostMapping("/update/type/{content}/{newtype}")
     public ResponseEntity<?> updateType(@PathVariable String content, @PathVariable ColumnType newtype) {
-        Column column = columnService.findByContent(content);
-        if (!columnService.columnContentExists(content)) {
+        try {
+            return new ResponseEntity<>(ColumnView.of(columnService.updateType(content, newtype)), HttpStatus.OK);
+        } catch (NullPointerException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Column content  \"" + content
                     + "\" does not exists!");
         }
-        columnService.updateType(column, newtype);
-        return new ResponseEntity<>(column, HttpStatus.OK);
     }
 
     //Controller/api to update resource
@@ -123,7 +152,7 @@ public class ColumnController {
             throw new NullPointerException("Resource with name: " +
                     resourcename + " was not found in the database.");
         }
-        return new ResponseEntity<>(columnService.updateResource(content, resourcename), HttpStatus.OK);
+        return new ResponseEntity<>(ColumnView.of(columnService.updateResource(content, resourcename)), HttpStatus.OK);
     }
 
     //Controller/api to delete column based on content
@@ -159,9 +188,15 @@ public class ColumnController {
         return ResponseEntity.ok().body("Columns with type \"" + type + "\" were successfully deleted: ");
     }
 
-    //Controller/api to delete all the columns
+    //Controller/api to delete all the columns, ?background=true runs it as a job and answers 202 with the job
     @GetMapping("/delete/columns")
-    public ResponseEntity<?> deleteColumns() {
+    public ResponseEntity<?> deleteColumns(@RequestParam(defaultValue = "false") boolean background) {
+        if (background) {
+            return JobController.submit(jobService, "column-delete-all", context -> {
+                columnService.deleteColumns();
+                return "All columns have been successfully deleted.";
+            });
+        }
         columnService.deleteColumns();
         return ResponseEntity.ok().body("All columns have been successfully deleted.");
     }
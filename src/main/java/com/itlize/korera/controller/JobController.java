@@ -0,0 +1,71 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.model.Job;
+import com.itlize.korera.service.JobService;
+import com.itlize.korera.service.JobTask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/job")
+@RequiredArgsConstructor
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    //Controller/api to get the status and progress of a job
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Integer id, Authentication authentication){
+        return ResponseEntity.ok().body(ownJob(id, authentication));
+    }
+
+    //Controller/api to get the latest jobs of the current user
+    @GetMapping("/getjobs")
+    public ResponseEntity<?> getJobs(Authentication authentication){
+        return ResponseEntity.ok().body(jobService.getJobs(authentication.getName()));
+    }
+
+    //Controller/api to cancel a queued or running job
+    @PostMapping("/cancel/{id}")
+    public ResponseEntity<?> cancelJob(@PathVariable Integer id, Authentication authentication){
+        ownJob(id, authentication);
+        return ResponseEntity.ok().body(jobService.cancel(id));
+    }
+
+    //Runs the task as a job of the current user, 202 with the job to follow at /job/{id}
+    static ResponseEntity<?> submit(JobService jobService, String type, JobTask task) {
+        try {
+            Job job = jobService.submit(type, task);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/job/{id}").build(job.getJobId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    //Users see their own jobs, admins every job
+    private Job ownJob(Integer id, Authentication authentication) {
+        Job job;
+        try {
+            job = jobService.findById(id);
+        } catch (NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job \"" + id + "\" does not exists!");
+        }
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        if (!admin && !job.getUsername().equals(authentication.getName())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job \"" + id + "\" does not exists!");
+        }
+        return job;
+    }
+}
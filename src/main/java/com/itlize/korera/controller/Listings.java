@@ -0,0 +1,46 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.repository.TableVersions;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+//Listing endpoints tagged with the versions of the tables they read, see TableVersions
+final class Listings {
+
+    private Listings() {
+    }
+
+    //304 without a query when If-None-Match holds the cached versions, else the listing together with the
+    //versions read in its own read-only transaction, from the same database
+    static ResponseEntity<?> respond(TableVersions tableVersions, WebRequest request, String key,
+                                     Supplier<?> listing, String... tables) {
+        String etag = tableVersions.etag(key, tables);
+        if (matches(request.getHeaderValues(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        TableVersions.Snapshot<?> snapshot = tableVersions.snapshot(key, listing, tables);
+        return ResponseEntity.ok().eTag(snapshot.getEtag()).body(snapshot.getBody());
+    }
+
+    private static boolean matches(String[] ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String header : ifNoneMatch) {
+            for (String candidate : header.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,18 +1,31 @@
 package com.itlize.korera.controller;
 
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.ResourceAssignment;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.User;
+import com.itlize.korera.repository.TableVersions;
+import com.itlize.korera.service.ExportService;
+import com.itlize.korera.service.JobService;
 import com.itlize.korera.service.ProjectService;
+import com.itlize.korera.service.ResourceService;
 import com.itlize.korera.service.UserService;
 import com.itlize.korera.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/project")
@@ -24,6 +37,14 @@ public class ProjectController {
     @Autowired
     private ProjectService projectService;
     @Autowired
+    private TableVersions tableVersions;
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private JobService jobService;
+    @Autowired
+    private ResourceService resourceService;
+    @Autowired
     private AuthenticationManager authenticationManager;
     @Autowired
     private JwtUtil jwtTokenUtil;
@@ -46,6 +67,31 @@ public class ProjectController {
                 " has been successfully created.", HttpStatus.CREATED);
     }
 
+    //Controller/api to create a project as a copy of another one with all its resources, ?username= gives it another owner
+    @PostMapping("/clone/{source}/{target}")
+    public ResponseEntity<?> cloneProject(@PathVariable String source, @PathVariable String target,
+                                          @RequestParam(required = false) String username){
+        if (!projectService.projectNameExists(source)){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Project \"" + source + "\" does not exists!");
+        }else if (projectService.projectNameExists(target)){
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Project \"" + target + "\" already exists!");
+        }else if (username != null && !userService.usernameExists(username)){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
+        }
+        return new ResponseEntity<>(ProjectView.of(projectService.cloneProject(source, target, username)),
+                HttpStatus.CREATED);
+    }
+
+    //Controller/api to add many resources to a project at once, by name, code or id; existing links are kept
+    @PostMapping("/{projectname}/resources")
+    public ResponseEntity<?> addResourcesToProject(@PathVariable String projectname,
+                                                   @RequestBody ResourceAssignment assignment){
+        if (!projectService.projectNameExists(projectname)){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Project \"" + projectname + "\" does not exists!");
+        }
+        return ResponseEntity.ok().body(resourceService.addResourcesToProject(projectname, assignment));
+    }
+
     //Controller/api to get project information based on project name
     @GetMapping("/projectname/{projectname}")
     public ResponseEntity<?> getProjectByName(@PathVariable String projectname){
@@ -54,7 +100,7 @@ public class ProjectController {
                     + projectService.findByName(projectname).getProjectName()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(projectService.findByName(projectname));
+        return ResponseEntity.ok().body(ProjectView.of(projectService.findByName(projectname)));
     }
 
     //Controller/api to get project information based on project id
@@ -65,19 +111,66 @@ public class ProjectController {
                     + projectService.findById(projectid).getProjectId()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(projectService.findById(projectid));
+        return ResponseEntity.ok().body(ProjectView.of(projectService.findById(projectid)));
     }
 
-    //Controller/api to get all the projects' information by user
+    //Controller/api to get all the projects' information by user, 304 without a query when If-None-Match is current
     @GetMapping("/getprojects/{username}")
-    public ResponseEntity<?> getProjectsByUsername(@PathVariable String username){
-        return ResponseEntity.ok().body(projectService.getProjectsByUsername(username));
+    public ResponseEntity<?> getProjectsByUsername(@PathVariable String username, WebRequest request){
+        return Listings.respond(tableVersions, request, "projects/" + username,
+                () -> projectService.getProjectsByUsername(username), TableVersions.PROJECT, TableVersions.USER);
     }
 
-    //Controller/api to get all the projects' information
+    //Controller/api to get all the projects' information, 304 without a query when If-None-Match is current
     @GetMapping("/getprojects")
-    public ResponseEntity<?> getProjects(){
-        return ResponseEntity.ok().body(projectService.getProjects());
+    public ResponseEntity<?> getProjects(WebRequest request){
+        return Listings.respond(tableVersions, request, "projects", projectService::getProjects,
+                TableVersions.PROJECT, TableVersions.USER);
+    }
+
+    //Controller/api to get one page of projects, pass the returned nextPageToken as token to get the next one
+    @GetMapping("/page")
+    public ResponseEntity<?> getProjectsPage(@RequestParam(required = false) String token,
+                                             @RequestParam(required = false) Integer size){
+        try {
+            return ResponseEntity.ok().body(projectService.getProjects(token, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    //Controller/api to export every project with its resources and columns, streamed as csv or ndjson
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProjects(@RequestParam(defaultValue = "csv") String format){
+        return export(null, format);
+    }
+
+    //Controller/api to export one project with its resources and columns, streamed as csv or ndjson
+    @GetMapping("/export/{projectname}")
+    public ResponseEntity<StreamingResponseBody> exportProject(@PathVariable String projectname,
+                                                               @RequestParam(defaultValue = "csv") String format){
+        if (!projectService.projectNameExists(projectname)){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Project \"" + projectname + "\" does not exists!");
+        }
+        return export(projectname, format);
+    }
+
+    //The status is sent before the first row, so the format is checked up front
+    private ResponseEntity<StreamingResponseBody> export(String projectName, String format) {
+        MediaType type;
+        if ("csv".equals(format)) {
+            type = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("ndjson".equals(format)) {
+            type = MediaType.APPLICATION_NDJSON;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Projects cannot be exported as \""
+                    + format + "\", use csv or ndjson.");
+        }
+        String filename = (projectName == null ? "projects" : projectName) + "." + format;
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> exportService.exportProjects(projectName, format, out));
     }
 
     //Controller/api to update user associated with project
@@ -93,18 +186,17 @@ public class ProjectController {
             project.setUser(user);
             projectService.updateUser(name, username);
         }
-        return new ResponseEntity<>(project, HttpStatus.OK);
+        return new ResponseEntity<>(ProjectView.of(project), HttpStatus.OK);
     }
 
     //Controller/api to update project name
     @PostMapping("/update/{name}/{newname}")
     public ResponseEntity<?> updateName(@PathVariable String name, @PathVariable String newname){
-        Project project = projectService.findByName(name);
-        if (!projectService.projectNameExists(project.getProjectName())){
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Project \"" + project.getProjectName() + "\" does not exists!");
+        try {
+            return new ResponseEntity<>(ProjectView.of(projectService.updateName(name, newname)), HttpStatus.OK);
+        } catch (NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Project \"" + name + "\" does not exists!");
         }
-        projectService.updateName(project,newname);
-        return new ResponseEntity<>(project, HttpStatus.OK);
     }
 
     //Controller/api to delete project based on name
@@ -127,9 +219,15 @@ public class ProjectController {
         return ResponseEntity.ok().body("Project with id \"" + id + "\" was successfully deleted.");
     }
 
-    //Controller/api to delete all the projects
+    //Controller/api to delete all the projects, ?background=true runs it as a job and answers 202 with the job
     @GetMapping("/delete/projects")
-    public ResponseEntity<?> deleteProjects(){
+    public ResponseEntity<?> deleteProjects(@RequestParam(defaultValue = "false") boolean background){
+        if (background) {
+            return JobController.submit(jobService, "project-delete-all", context -> {
+                projectService.deleteProjects();
+                return "All projects have been successfully deleted.";
+            });
+        }
         projectService.deleteProjects();
         return ResponseEntity.ok().body("All projects have been successfully deleted.");
     }
@@ -0,0 +1,52 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.repository.ReactiveReadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking variants of the polled listing endpoints. Results are streamed as newline delimited
+ * JSON while they are read, so a request holds neither a Tomcat thread nor a JDBC connection;
+ * clients asking for application/json get the usual array.
+ */
+@RestController
+@RequestMapping(value = "/reactive", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+@RequiredArgsConstructor
+public class ReactiveReadController {
+
+    @Autowired
+    private final ReactiveReadRepository reactiveReadRepository;
+
+    //Controller/api to stream all the resources' information
+    @GetMapping("/resource/getresources")
+    public Flux<ResourceView> getResources() {
+        return reactiveReadRepository.findAllResources();
+    }
+
+    //Controller/api to stream the resources used by a particular project
+    @GetMapping("/resource/resources/project/{projectname}")
+    public Flux<ResourceView> getResourcesByProject(@PathVariable String projectname) {
+        return reactiveReadRepository.findResourcesByProjectName(projectname);
+    }
+
+    //Controller/api to stream the projects of a user
+    @GetMapping("/project/getprojects/{username}")
+    public Flux<ProjectView> getProjectsByUsername(@PathVariable String username) {
+        return reactiveReadRepository.findProjectsByUsername(username);
+    }
+
+    //Controller/api to stream the columns of a resource
+    @GetMapping("/column/getcolumns/{resourcename}")
+    public Flux<ColumnView> getColumnsByResourceName(@PathVariable String resourcename) {
+        return reactiveReadRepository.findColumnsByResourceName(resourcename);
+    }
+}
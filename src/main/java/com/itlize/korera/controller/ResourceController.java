@@ -1,9 +1,16 @@
 package com.itlize.korera.controller;
 
+import com.itlize.korera.dto.BulkResult;
+import com.itlize.korera.dto.ImportProgress;
+import com.itlize.korera.dto.ProjectResourceView;
+import com.itlize.korera.dto.ResourceView;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.ProjectResource;
 import com.itlize.korera.model.Resource;
 import com.itlize.korera.model.User;
+import com.itlize.korera.repository.TableVersions;
+import com.itlize.korera.service.ImportService;
+import com.itlize.korera.service.JobService;
 import com.itlize.korera.service.ProjectResourceService;
 import com.itlize.korera.service.ProjectService;
 import com.itlize.korera.service.ResourceService;
@@ -11,12 +18,24 @@ import com.itlize.korera.service.UserService;
 import com.itlize.korera.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/resource")
@@ -32,6 +51,12 @@ public class ResourceController {
     @Autowired
     private ProjectResourceService projectResourceService;
     @Autowired
+    private TableVersions tableVersions;
+    @Autowired
+    private ImportService importService;
+    @Autowired
+    private JobService jobService;
+    @Autowired
     private AuthenticationManager authenticationManager;
     @Autowired
     private JwtUtil jwtTokenUtil;
@@ -42,14 +67,72 @@ public class ResourceController {
     @PostMapping("/create")
     public ResponseEntity<?> createResource(@RequestBody Resource resource){
         resourceService.saveResource(resource);
-        return new ResponseEntity<>(resource, HttpStatus.CREATED);
+        return new ResponseEntity<>(ResourceView.of(resource), HttpStatus.CREATED);
+    }
+
+    //Controller/api to create many resources at once with batched inserts, 207 with the committed and
+    //failed rows when a chunk fails
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createResources(@RequestBody List<Resource> resources){
+        BulkResult result = resourceService.saveResources(resources);
+        return new ResponseEntity<>(result, result.isComplete() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+    }
+
+    //Controller/api to insert or rename many resources at once, matched by resource code
+    @PostMapping("/upsert")
+    public ResponseEntity<?> upsertResources(@RequestBody List<Resource> resources){
+        try {
+            return ResponseEntity.ok().body(resourceService.upsertByCode(resources));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    //Controller/api to import resources and their columns from a CSV file, answers 202 and imports in the background
+    @PostMapping("/import")
+    public ResponseEntity<?> importResources(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The file is empty!");
+        }
+        try {
+            ImportProgress progress = importService.importResources(file);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").build(progress.getId()))
+                    .body(progress);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    //Controller/api to follow an import
+    @GetMapping("/import/{id}")
+    public ResponseEntity<?> getImportProgress(@PathVariable String id){
+        try {
+            return ResponseEntity.ok().body(importService.getProgress(id));
+        } catch (NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    //Controller/api to download the rows an import rejected, with their line and error
+    @GetMapping("/import/{id}/errors")
+    public ResponseEntity<?> getImportErrors(@PathVariable String id){
+        try {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename("import-" + id + "-errors.csv").build().toString())
+                    .body(new FileSystemResource(importService.getErrorFile(id)));
+        } catch (NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
     }
 
     //Controller/api to add a resource to a project
     @PostMapping("/add/project/{resourcename}/{projectname}")
     public ResponseEntity<?> addResourceToProject(@PathVariable String resourcename
             , @PathVariable String projectname) {
-        return new ResponseEntity<>(resourceService.addResourceToProject(resourcename, projectname)
+        return new ResponseEntity<>(ProjectResourceView.of(resourceService.addResourceToProject(resourcename, projectname))
                 , HttpStatus.OK);
     }
 
@@ -61,7 +144,7 @@ public class ResourceController {
                     + resourceService.findByName(name).getResourceName()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(resourceService.findByName(name));
+        return ResponseEntity.ok().body(ResourceView.of(resourceService.findByName(name)));
     }
 
     //Controller/api to get resource information based on code
@@ -72,7 +155,7 @@ public class ResourceController {
                     + resourceService.findByCode(code).getResourceCode()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(resourceService.findByCode(code));
+        return ResponseEntity.ok().body(ResourceView.of(resourceService.findByCode(code)));
     }
 
     //Controller/api to get project information based on project id
@@ -83,7 +166,7 @@ public class ResourceController {
                     + resourceService.findById(id).getResourceId()
                     + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(resourceService.findById(id));
+        return ResponseEntity.ok().body(ResourceView.of(resourceService.findById(id)));
     }
 
     //Controller/api to get a list of resources used by a particular project
@@ -100,34 +183,43 @@ public class ResourceController {
                 , HttpStatus.OK);
     }
 
-    //Controller/api to get all the resources' information
+    //Controller/api to get all the resources' information, 304 without a query when If-None-Match is current
     @GetMapping("/getresources")
-    public ResponseEntity<?> getResources(){
-        return ResponseEntity.ok().body(resourceService.getResources());
+    public ResponseEntity<?> getResources(WebRequest request){
+        return Listings.respond(tableVersions, request, "resources", resourceService::getResources,
+                TableVersions.RESOURCE);
+    }
+
+    //Controller/api to get one page of resources sorted by id or name, pass the returned nextPageToken as token
+    @GetMapping("/page")
+    public ResponseEntity<?> getResourcesPage(@RequestParam(required = false) String token,
+                                              @RequestParam(required = false) Integer size,
+                                              @RequestParam(defaultValue = "id") String sort){
+        try {
+            return ResponseEntity.ok().body(resourceService.getResources(token, size, sort));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     //Controller/api to update resource name
     @PostMapping("/update/name/{name}/{newname}")
     public ResponseEntity<?> updateName(@PathVariable String name, @PathVariable String newname){
-        Resource resource = resourceService.findByName(name);
-        if (!resourceService.resourceNameExists(name)){
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Resource \"" + resource.getResourceName()
-                    + "\" does not exists!");
+        try {
+            return new ResponseEntity<>(ResourceView.of(resourceService.updateName(name, newname)), HttpStatus.OK);
+        } catch (NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Resource \"" + name + "\" does not exists!");
         }
-        resourceService.updateName(resource,newname);
-        return new ResponseEntity<>(resource, HttpStatus.OK);
     }
 
     //Controller/api to update resource code
     @PostMapping("/update/code/{code}/{newcode}")
     public ResponseEntity<?> updateCode(@PathVariable String code, @PathVariable String newcode){
-        Resource resource = resourceService.findByCode(code);
-        if (!resourceService.resourceCodeExists(code)){
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Resource \"" + resource.getResourceCode()
-                    + "\" does not exists!");
+        try {
+            return new ResponseEntity<>(ResourceView.of(resourceService.updateCode(code, newcode)), HttpStatus.OK);
+        } catch (NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Resource \"" + code + "\" does not exists!");
         }
-        resourceService.updateCode(resource,newcode);
-        return new ResponseEntity<>(resource, HttpStatus.OK);
     }
 
     //Controller/api to update project associated with a resource
@@ -200,9 +292,15 @@ public class ResourceController {
                 + projectResource.getProject().getProjectName(), HttpStatus.OK);
     }
 
-    //Controller/api to delete all the resources
+    //Controller/api to delete all the resources, ?background=true runs it as a job and answers 202 with the job
     @GetMapping("/delete/resources")
-    public ResponseEntity<?> deleteResources(){
+    public ResponseEntity<?> deleteResources(@RequestParam(defaultValue = "false") boolean background){
+        if (background) {
+            return JobController.submit(jobService, "resource-delete-all", context -> {
+                resourceService.deleteResources();
+                return "All resources have been successfully deleted.";
+            });
+        }
         resourceService.deleteResources();
         return ResponseEntity.ok().body("All resources have been successfully deleted.");
     }
@@ -1,8 +1,16 @@
 package com.itlize.korera.controller;
 
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.UserView;
 import com.itlize.korera.model.User;
+import com.itlize.korera.security.RefreshTokenService;
+import com.itlize.korera.security.TokenRevocationStore;
+import com.itlize.korera.service.JobService;
 import com.itlize.korera.service.UserService;
 import com.itlize.korera.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -10,14 +18,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/user")
@@ -31,7 +40,11 @@ public class UserController {
     @Autowired
     private JwtUtil jwtTokenUtil;
     @Autowired
-    private UserDetailsService userDetailsService;
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+    @Autowired
+    private JobService jobService;
 
     //Controller/api to register/create an account
     @PostMapping("/register")
@@ -47,14 +60,16 @@ public class UserController {
             //return ResponseEntity.status(409).body("Username already exists!");
             //return new ResponseEntity<>("Username already exists!", HttpStatus.CONFLICT);
         }
-        return ResponseEntity.created(uri).body(user);
+        return ResponseEntity.created(uri).body(UserView.of(user));
     }
 
     //Controller/api to log in/generate authentication token to already registered account
     @PostMapping( "/login")
     public ResponseEntity<?> createAuthenticationToken(@RequestBody User user )  throws Exception {
+        //The authenticated principal already holds the authorities, the user is loaded only once
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(user.getUsername(), user.getPassword())
             );
         }
@@ -62,15 +77,50 @@ public class UserController {
             throw new Exception("Incorrect username or password", e);
         }
 
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-
-        User response = service.findByUsername(user.getUsername());
-
+        final UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         final String jwt = jwtTokenUtil.generateToken(userDetails);
         //jwt gives token in postman switch with user to get user details
-        return  new ResponseEntity<>(jwt, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .header(RefreshTokenService.REFRESH_TOKEN, refreshTokenService.issue(userDetails.getUsername()))
+                .body(jwt);
     }
 
+    //Controller/api to renew the access token with a refresh token, without the password
+    //The refresh token can be used once, the response carries the next one
+    @PostMapping("/token/refresh")
+    public ResponseEntity<Map<String, String>> refreshToken(
+            @RequestHeader(RefreshTokenService.REFRESH_TOKEN) String refreshToken){
+        Map<String, String> tokens = refreshTokenService.refresh(refreshToken);
+        return ResponseEntity.ok()
+                .header(RefreshTokenService.ACCESS_TOKEN, tokens.get(RefreshTokenService.ACCESS_TOKEN))
+                .header(RefreshTokenService.REFRESH_TOKEN, tokens.get(RefreshTokenService.REFRESH_TOKEN))
+                .body(tokens);
+    }
+
+
+    //Controller/api to log out, revokes the access token and the refresh token if one is given
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authorization,
+                                    @RequestHeader(value = RefreshTokenService.REFRESH_TOKEN, required = false)
+                                            String refreshToken){
+        if (!authorization.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bearer token is missing!");
+        }
+        Claims claims;
+        try {
+            claims = jwtTokenUtil.extractAllClaims(authorization.substring(7));
+            tokenRevocationStore.revokeToken(claims.getId(), claims.getExpiration().getTime());
+        } catch (ExpiredJwtException e) {
+            //Signed by us and of no use anymore, nothing to revoke
+            claims = e.getClaims();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid bearer token.");
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        return ResponseEntity.ok().body("User \"" + claims.getSubject() + "\" was successfully logged out.");
+    }
 
     //Controller/api to get user information based on username
     @GetMapping("/username/{username}")
@@ -78,33 +128,42 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(service.findByUsername(username));
+        return ResponseEntity.ok().body(UserView.of(service.findByUsername(username)));
     }
 
     //Controller/api to get user information based on user id
     @GetMapping("/id/{userid}")
-    public ResponseEntity<User> getUserById(@PathVariable Integer userid){
+    public ResponseEntity<UserView> getUserById(@PathVariable Integer userid){
         if (!service.userIdExists(userid)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User id \"" + userid + "\" does not exists!");
         }
-        return ResponseEntity.ok().body(service.findByUserId(userid));
+        return ResponseEntity.ok().body(UserView.of(service.findByUserId(userid)));
     }
 
     //Controller/api to get all the users' information
     @GetMapping("/getusers")
-    public ResponseEntity<List<User>> getUsers(){
+    public ResponseEntity<List<UserView>> getUsers(){
         return ResponseEntity.ok().body(service.getUsers());
     }
 
+    //Controller/api to get one page of users, pass the returned nextPageToken as token to get the next one
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<UserView>> getUsersPage(@RequestParam(required = false) String token,
+                                                             @RequestParam(required = false) Integer size){
+        try {
+            return ResponseEntity.ok().body(service.getUsers(token, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     //Controller/api to update username of user
     @PostMapping("/update/username/{username}")
     public ResponseEntity<?> updateUsername(@RequestBody User user, @PathVariable String username){
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updateUsername(verifiedUser,user.getUsername());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updateUsername(username, user.getUsername())));
     }
 
     //Controller/api to update password of user
@@ -113,9 +172,7 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updatePassword(verifiedUser,user.getPassword());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updatePassword(username, user.getPassword())));
     }
 
     //Controller/api to update email of user
@@ -124,9 +181,7 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updateEmail(verifiedUser,user.getEmail());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updateEmail(username, user.getEmail())));
     }
 
     //Controller/api to update first name of user
@@ -135,9 +190,7 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updateFirstName(verifiedUser,user.getFirstName());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updateFirstName(username, user.getFirstName())));
     }
 
     //Controller/api to update last name of user
@@ -146,9 +199,7 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updateLastName(verifiedUser,user.getLastName());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updateLastName(username, user.getLastName())));
     }
 
     //Controller/api to update phone of user
@@ -157,9 +208,7 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updatePhone(verifiedUser,user.getPhone());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updatePhone(username, user.getPhone())));
     }
 
     //Controller/api to update role of user
@@ -168,9 +217,7 @@ public class UserController {
         if (!service.usernameExists(username)){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Username \"" + username + "\" does not exists!");
         }
-        User verifiedUser = service.findByUsername(username);
-        verifiedUser = service.updateRole(verifiedUser,user.getRole());
-        return ResponseEntity.ok().body(verifiedUser);
+        return ResponseEntity.ok().body(UserView.of(service.updateRole(username, user.getRole())));
     }
 
 
@@ -195,9 +242,15 @@ public class UserController {
         return ResponseEntity.ok().body("User with user id \"" + userid + "\" was successfully deleted.");
     }
 
-    //Controller/api to delete all users
+    //Controller/api to delete all users, ?background=true runs it as a job and answers 202 with the job
     @GetMapping("/delete/users")
-    public ResponseEntity<?> deleteUsers(){
+    public ResponseEntity<?> deleteUsers(@RequestParam(defaultValue = "false") boolean background){
+        if (background) {
+            return JobController.submit(jobService, "user-delete-all", context -> {
+                service.deleteUsers();
+                return "All users have been successfully deleted.";
+            });
+        }
         service.deleteUsers();
         return ResponseEntity.ok().body("All users have been successfully deleted.");
     }
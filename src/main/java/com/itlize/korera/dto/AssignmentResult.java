@@ -0,0 +1,47 @@
+package com.itlize.korera.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk assignment: links created, resources that were linked already, and the
+ * names, codes and ids that matched no resource.
+ */
+public class AssignmentResult {
+    private final int assigned;
+    private final int alreadyAssigned;
+    private final List<String> notFound;
+    private final long elapsedMillis;
+
+    public AssignmentResult(int assigned, int alreadyAssigned, List<String> notFound, long elapsedMillis) {
+        this.assigned = assigned;
+        this.alreadyAssigned = alreadyAssigned;
+        this.notFound = notFound;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getAssigned() {
+        return assigned;
+    }
+
+    public int getAlreadyAssigned() {
+        return alreadyAssigned;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AssignmentResult{" +
+                "assigned=" + assigned +
+                ", alreadyAssigned=" + alreadyAssigned +
+                ", notFound=" + notFound.size() +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.itlize.korera.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One call of a POST /batch request: the operation, named after the endpoint it replaces
+ * (e.g. "resource/create", "column/update/resource"), its path variables as params and its request body.
+ */
+public class BatchOperation {
+    private String operation;
+    private Map<String, String> params = new HashMap<>();
+    private JsonNode body;
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,41 @@
+package com.itlize.korera.dto;
+
+/**
+ * Outcome of one batch operation, with the status the single endpoint would have answered.
+ * 424 marks operations that were rolled back or skipped because another operation failed.
+ */
+public class BatchOperationResult {
+    private final int index;
+    private final String operation;
+    private final int status;
+    private final Object body;
+    private final String error;
+
+    public BatchOperationResult(int index, String operation, int status, Object body, String error) {
+        this.index = index;
+        this.operation = operation;
+        this.status = status;
+        this.body = body;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Object getBody() {
+        return body;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,40 @@
+package com.itlize.korera.dto;
+
+import java.util.List;
+
+/**
+ * Response of POST /batch: one result per operation, in request order.
+ */
+public class BatchResult {
+    private final List<BatchOperationResult> results;
+    private final int succeeded;
+    private final int transactions;
+    private final long elapsedMillis;
+
+    public BatchResult(List<BatchOperationResult> results, int succeeded, int transactions, long elapsedMillis) {
+        this.results = results;
+        this.succeeded = succeeded;
+        this.transactions = transactions;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<BatchOperationResult> getResults() {
+        return results;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return results.size() - succeeded;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
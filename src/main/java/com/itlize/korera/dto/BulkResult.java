@@ -0,0 +1,71 @@
+package com.itlize.korera.dto;
+
+/**
+ * Outcome of a bulk write: how many rows were written, in how many committed chunks, and how fast.
+ * When a chunk fails, rows counts the rows committed before it, failedFrom and failedTo (exclusive)
+ * give the rows of the failed chunk, and the rows from failedTo on were not attempted.
+ */
+public class BulkResult {
+    private final int rows;
+    private final int chunks;
+    private final long elapsedMillis;
+    private final Integer failedFrom;
+    private final Integer failedTo;
+    private final String error;
+
+    public BulkResult(int rows, int chunks, long elapsedMillis) {
+        this(rows, chunks, elapsedMillis, null, null, null);
+    }
+
+    public BulkResult(int rows, int chunks, long elapsedMillis, Integer failedFrom, Integer failedTo, String error) {
+        this.rows = rows;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+        this.failedFrom = failedFrom;
+        this.failedTo = failedTo;
+        this.error = error;
+    }
+
+    public boolean isComplete() {
+        return failedFrom == null;
+    }
+
+    public Integer getFailedFrom() {
+        return failedFrom;
+    }
+
+    public Integer getFailedTo() {
+        return failedTo;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows * 1000L : rows * 1000L / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+                "rows=" + rows +
+                ", chunks=" + chunks +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + getRowsPerSecond() +
+                (isComplete() ? "" : ", failedFrom=" + failedFrom + ", failedTo=" + failedTo + ", error=" + error) +
+                '}';
+    }
+}
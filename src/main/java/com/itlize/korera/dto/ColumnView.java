@@ -0,0 +1,71 @@
+package com.itlize.korera.dto;
+
+import com.itlize.korera.model.Column;
+import com.itlize.korera.model.ColumnType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A column with the id and name of its resource instead of the resource itself.
+ */
+public class ColumnView {
+    private final Integer columnId;
+    private final String content;
+    private final ColumnType columnType;
+    private final Integer resourceId;
+    private final String resourceName;
+    private final LocalDateTime timeCreated;
+    private final LocalDateTime timeUpdated;
+
+    public ColumnView(Integer columnId, String content, ColumnType columnType, Integer resourceId,
+                      String resourceName, LocalDateTime timeCreated, LocalDateTime timeUpdated) {
+        this.columnId = columnId;
+        this.content = content;
+        this.columnType = columnType;
+        this.resourceId = resourceId;
+        this.resourceName = resourceName;
+        this.timeCreated = timeCreated;
+        this.timeUpdated = timeUpdated;
+    }
+
+    public static ColumnView of(Column column) {
+        return new ColumnView(column.getColumnId(), column.getContent(), column.getColumnType(),
+                column.getResource() == null ? null : column.getResource().getResourceId(),
+                column.getResource() == null ? null : column.getResource().getResourceName(),
+                column.getTimeCreated(), column.getTimeUpdated());
+    }
+
+    public static List<ColumnView> listOf(List<Column> columns) {
+        return columns.stream().map(ColumnView::of).collect(Collectors.toList());
+    }
+
+    public Integer getColumnId() {
+        return columnId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public ColumnType getColumnType() {
+        return columnType;
+    }
+
+    public Integer getResourceId() {
+        return resourceId;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public LocalDateTime getTimeUpdated() {
+        return timeUpdated;
+    }
+}
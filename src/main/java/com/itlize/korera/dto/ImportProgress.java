@@ -0,0 +1,171 @@
+package com.itlize.korera.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * State of a resource import, written by the import thread and read by the progress endpoint.
+ * Counters only grow, each one is published after its chunk is committed.
+ */
+public class ImportProgress {
+    private final String id;
+    private final String filename;
+    private final long bytesTotal;
+    private final LocalDateTime timeCreated = LocalDateTime.now();
+    @JsonIgnore
+    private final Path errorFile;
+    private volatile Integer jobId;
+    private volatile String status = "QUEUED";
+    private volatile long bytesRead;
+    private volatile long rowsRead;
+    private volatile long rowsImported;
+    private volatile long rowsFailed;
+    private volatile long resourcesCreated;
+    private volatile long resourcesUpdated;
+    private volatile long columnsCreated;
+    private volatile long columnsUpdated;
+    private volatile int chunks;
+    private volatile long elapsedMillis;
+    private volatile String error;
+
+    public ImportProgress(String id, String filename, long bytesTotal, Path errorFile) {
+        this.id = id;
+        this.filename = filename;
+        this.bytesTotal = bytesTotal;
+        this.errorFile = errorFile;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public Path getErrorFile() {
+        return errorFile;
+    }
+
+    public Integer getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Integer jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isFinished() {
+        return "DONE".equals(status) || "FAILED".equals(status) || "CANCELLED".equals(status);
+    }
+
+    public int getPercent() {
+        return bytesTotal == 0 ? 100 : (int) (bytesRead * 100 / bytesTotal);
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public void setRowsFailed(long rowsFailed) {
+        this.rowsFailed = rowsFailed;
+    }
+
+    public long getResourcesCreated() {
+        return resourcesCreated;
+    }
+
+    public void setResourcesCreated(long resourcesCreated) {
+        this.resourcesCreated = resourcesCreated;
+    }
+
+    public long getResourcesUpdated() {
+        return resourcesUpdated;
+    }
+
+    public void setResourcesUpdated(long resourcesUpdated) {
+        this.resourcesUpdated = resourcesUpdated;
+    }
+
+    public long getColumnsCreated() {
+        return columnsCreated;
+    }
+
+    public void setColumnsCreated(long columnsCreated) {
+        this.columnsCreated = columnsCreated;
+    }
+
+    public long getColumnsUpdated() {
+        return columnsUpdated;
+    }
+
+    public void setColumnsUpdated(long columnsUpdated) {
+        this.columnsUpdated = columnsUpdated;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,46 @@
+package com.itlize.korera.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated listing. nextPageToken is null on the last page.
+ */
+public class KeysetPage<T> {
+    private final List<T> items;
+    private final String nextPageToken;
+    private final int pageSize;
+
+    public KeysetPage(List<T> items, String nextPageToken, int pageSize) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+        this.pageSize = pageSize;
+    }
+
+    //Builds a page from rows fetched with a limit of pageSize + 1, the extra row only tells whether a next page exists
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, String> tokenOf) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null, pageSize);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new KeysetPage<>(items, tokenOf.apply(items.get(pageSize - 1)), pageSize);
+    }
+
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextPageToken, pageSize);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,18 @@
+package com.itlize.korera.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of a project/resource link, read in a single joined query
+ * instead of resolving the project and resource of every link one by one.
+ */
+public interface ProjectResourceRow {
+    Integer getProjectResourceId();
+    Integer getProjectId();
+    String getProjectName();
+    Integer getResourceId();
+    String getResourceName();
+    String getResourceCode();
+    LocalDateTime getTimeCreated();
+    LocalDateTime getTimeUpdated();
+}
@@ -0,0 +1,80 @@
+package com.itlize.korera.dto;
+
+import com.itlize.korera.model.ProjectResource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A project/resource link with the ids and names of both ends instead of the entities.
+ */
+public class ProjectResourceView {
+    private final Integer projectResourceId;
+    private final Integer projectId;
+    private final String projectName;
+    private final Integer resourceId;
+    private final String resourceName;
+    private final String resourceCode;
+    private final LocalDateTime timeCreated;
+    private final LocalDateTime timeUpdated;
+
+    public ProjectResourceView(Integer projectResourceId, Integer projectId, String projectName, Integer resourceId,
+                               String resourceName, String resourceCode,
+                               LocalDateTime timeCreated, LocalDateTime timeUpdated) {
+        this.projectResourceId = projectResourceId;
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.resourceId = resourceId;
+        this.resourceName = resourceName;
+        this.resourceCode = resourceCode;
+        this.timeCreated = timeCreated;
+        this.timeUpdated = timeUpdated;
+    }
+
+    public static ProjectResourceView of(ProjectResource projectResource) {
+        return new ProjectResourceView(projectResource.getProjectResourceId(),
+                projectResource.getProject() == null ? null : projectResource.getProject().getProjectId(),
+                projectResource.getProject() == null ? null : projectResource.getProject().getProjectName(),
+                projectResource.getResource() == null ? null : projectResource.getResource().getResourceId(),
+                projectResource.getResource() == null ? null : projectResource.getResource().getResourceName(),
+                projectResource.getResource() == null ? null : projectResource.getResource().getResourceCode(),
+                projectResource.getTimeCreated(), projectResource.getTimeUpdated());
+    }
+
+    public static List<ProjectResourceView> listOf(List<ProjectResource> projectResources) {
+        return projectResources.stream().map(ProjectResourceView::of).collect(Collectors.toList());
+    }
+
+    public Integer getProjectResourceId() {
+        return projectResourceId;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public Integer getResourceId() {
+        return resourceId;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getResourceCode() {
+        return resourceCode;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public LocalDateTime getTimeUpdated() {
+        return timeUpdated;
+    }
+}
@@ -0,0 +1,57 @@
+package com.itlize.korera.dto;
+
+import com.itlize.korera.model.Project;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A project with the username of its owner instead of the user and its resource links.
+ */
+public class ProjectView {
+    private final Integer projectId;
+    private final String projectName;
+    private final String username;
+    private final LocalDateTime timeCreated;
+    private final LocalDateTime timeUpdated;
+
+    public ProjectView(Integer projectId, String projectName, String username,
+                       LocalDateTime timeCreated, LocalDateTime timeUpdated) {
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.username = username;
+        this.timeCreated = timeCreated;
+        this.timeUpdated = timeUpdated;
+    }
+
+    public static ProjectView of(Project project) {
+        return new ProjectView(project.getProjectId(), project.getProjectName(),
+                project.getUser() == null ? null : project.getUser().getUsername(),
+                project.getTimeCreated(), project.getTimeUpdated());
+    }
+
+    public static List<ProjectView> listOf(List<Project> projects) {
+        return projects.stream().map(ProjectView::of).collect(Collectors.toList());
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public LocalDateTime getTimeUpdated() {
+        return timeUpdated;
+    }
+}
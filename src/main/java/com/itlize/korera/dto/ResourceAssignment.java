@@ -0,0 +1,38 @@
+package com.itlize.korera.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of POST /project/{projectname}/resources: the resources to link, by name, code or id,
+ * in any mix.
+ */
+public class ResourceAssignment {
+    private List<String> names = new ArrayList<>();
+    private List<String> codes = new ArrayList<>();
+    private List<Integer> ids = new ArrayList<>();
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public void setNames(List<String> names) {
+        this.names = names;
+    }
+
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    public void setCodes(List<String> codes) {
+        this.codes = codes;
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+}
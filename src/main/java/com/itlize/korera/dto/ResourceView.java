@@ -0,0 +1,56 @@
+package com.itlize.korera.dto;
+
+import com.itlize.korera.model.Resource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A resource without its columns and project links.
+ */
+public class ResourceView {
+    private final Integer resourceId;
+    private final String resourceName;
+    private final String resourceCode;
+    private final LocalDateTime timeCreated;
+    private final LocalDateTime timeUpdated;
+
+    public ResourceView(Integer resourceId, String resourceName, String resourceCode,
+                        LocalDateTime timeCreated, LocalDateTime timeUpdated) {
+        this.resourceId = resourceId;
+        this.resourceName = resourceName;
+        this.resourceCode = resourceCode;
+        this.timeCreated = timeCreated;
+        this.timeUpdated = timeUpdated;
+    }
+
+    public static ResourceView of(Resource resource) {
+        return new ResourceView(resource.getResourceId(), resource.getResourceName(), resource.getResourceCode(),
+                resource.getTimeCreated(), resource.getTimeUpdated());
+    }
+
+    public static List<ResourceView> listOf(List<Resource> resources) {
+        return resources.stream().map(ResourceView::of).collect(Collectors.toList());
+    }
+
+    public Integer getResourceId() {
+        return resourceId;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getResourceCode() {
+        return resourceCode;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public LocalDateTime getTimeUpdated() {
+        return timeUpdated;
+    }
+}
@@ -0,0 +1,54 @@
+package com.itlize.korera.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of an upsert: rows inserted, rows updated, rows already as given, and the keys of rows
+ * that were skipped because they conflict with another row.
+ */
+public class UpsertResult {
+    private final int inserted;
+    private final int updated;
+    private final int unchanged;
+    private final List<String> conflicts;
+    private final long elapsedMillis;
+
+    public UpsertResult(int inserted, int updated, int unchanged, List<String> conflicts, long elapsedMillis) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.conflicts = conflicts;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public List<String> getConflicts() {
+        return conflicts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult{" +
+                "inserted=" + inserted +
+                ", updated=" + updated +
+                ", unchanged=" + unchanged +
+                ", conflicts=" + conflicts.size() +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
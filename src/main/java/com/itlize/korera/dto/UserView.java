@@ -0,0 +1,81 @@
+package com.itlize.korera.dto;
+
+import com.itlize.korera.model.Role;
+import com.itlize.korera.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A user without the password hash and the projects.
+ */
+public class UserView {
+    private final Integer userId;
+    private final String username;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final Integer phone;
+    private final Role role;
+    private final LocalDateTime timeCreated;
+    private final LocalDateTime timeUpdated;
+
+    public UserView(Integer userId, String username, String email, String firstName, String lastName,
+                    Integer phone, Role role, LocalDateTime timeCreated, LocalDateTime timeUpdated) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phone = phone;
+        this.role = role;
+        this.timeCreated = timeCreated;
+        this.timeUpdated = timeUpdated;
+    }
+
+    public static UserView of(User user) {
+        return new UserView(user.getUserId(), user.getUsername(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), user.getPhone(), user.getRole(), user.getTimeCreated(), user.getTimeUpdated());
+    }
+
+    public static List<UserView> listOf(List<User> users) {
+        return users.stream().map(UserView::of).collect(Collectors.toList());
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public Integer getPhone() {
+        return phone;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public LocalDateTime getTimeUpdated() {
+        return timeUpdated;
+    }
+}
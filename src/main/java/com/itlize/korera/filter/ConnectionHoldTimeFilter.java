@@ -0,0 +1,60 @@
+package com.itlize.korera.filter;
+
+import com.itlize.korera.config.ConnectionHoldTimeDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long a request held database connections in total as korera.db.connection.hold,
+ * tagged with the endpoint pattern. Asynchronous requests are recorded when their last dispatch ends.
+ */
+//First filter, so the security chain's lookups count as well
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ConnectionHoldTimeFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        //Set before the first connection is taken, also read by the executor threads of async requests
+        if (request.getAttribute(ConnectionHoldTimeDataSource.HELD_NANOS_ATTRIBUTE) == null) {
+            request.setAttribute(ConnectionHoldTimeDataSource.HELD_NANOS_ATTRIBUTE, new AtomicLong());
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                AtomicLong held = (AtomicLong) request.getAttribute(ConnectionHoldTimeDataSource.HELD_NANOS_ATTRIBUTE);
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                Timer.builder("korera.db.connection.hold")
+                        .tag("endpoint", pattern == null ? "UNKNOWN" : pattern.toString())
+                        .register(meterRegistry)
+                        .record(held == null ? 0 : held.get(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package com.itlize.korera.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.itlize.korera.security.TokenRevocationStore;
 import com.itlize.korera.service.serviceimpl.UserDetailsServiceImpl;
 import com.itlize.korera.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -15,8 +28,18 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Authenticates requests carrying a bearer token. The token is verified once and the principal
+ * is built from its role claim, then kept in a bounded cache until the token expires, so repeated
+ * requests with the same token are neither parsed nor verified again. Only tokens issued before
+ * the role claim existed still load the user from the database.
+ * Revoked tokens are refused on every request, cached or not, see TokenRevocationStore.
+ * Time spent in the filter is recorded as korera.auth.filter, tagged with how the request was handled.
+ */
 @Component
+@Slf4j // logs
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     @Autowired
@@ -25,34 +48,116 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final MeterRegistry meterRegistry;
+
+    public JwtRequestFilter(MeterRegistry meterRegistry,
+                            @Value("${korera.jwt.principal-cache-size:10000}") long principalCacheSize) {
+        this.meterRegistry = meterRegistry;
+        this.verifiedTokens = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build(), "jwt-principals");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        String outcome = authenticate(request);
+        Timer.builder("korera.auth.filter")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        chain.doFilter(request, response);
+    }
 
+    private String authenticate(HttpServletRequest request) {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
         //Whether Bearer is included in Authorization, if one is not included, return directly
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            return "skipped";
+        }
+        String jwt = authorizationHeader.substring(7);
+
+        String outcome = "cached";
+        VerifiedToken verified = verifiedTokens.getIfPresent(jwt);
+        if (verified == null) {
+            Claims claims;
+            try {
+                claims = jwtUtil.extractAllClaims(jwt);
+            } catch (JwtException | IllegalArgumentException e) {
+                log.warn("Rejected bearer token: " + e.getMessage());
+                return "rejected";
+            }
+            if (claims.getExpiration() == null) {
+                log.warn("Rejected bearer token of " + claims.getSubject() + " without expiration.");
+                return "rejected";
+            }
+            UserDetails principal = jwtUtil.extractPrincipal(claims);
+            outcome = "verified";
+            if (principal == null) {
+                UserDetails user;
+                try {
+                    user = userDetailsService.loadUserByUsername(claims.getSubject());
+                } catch (UsernameNotFoundException e) {
+                    return "rejected";
+                }
+                principal = new User(user.getUsername(), "", user.getAuthorities());
+                outcome = "loaded";
+            }
+            verified = new VerifiedToken(principal, claims.getId(), JwtUtil.issuedAtMillis(claims),
+                    claims.getExpiration().getTime());
+            verifiedTokens.put(jwt, verified);
+        }
+        if (tokenRevocationStore.isRevoked(verified.jti, verified.principal.getUsername(), verified.issuedAtMillis)) {
+            verifiedTokens.invalidate(jwt);
+            return "revoked";
         }
 
-        //Whether Authorization is included in the header of the request body
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
+                verified.principal, null, verified.principal.getAuthorities());
+        usernamePasswordAuthenticationToken
+                .setDetails(new WebAuthenticationDetailsSource()
+                .buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+        return outcome;
+    }
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+    private static class VerifiedToken {
+        private final UserDetails principal;
+        private final String jti;
+        private final long issuedAtMillis;
+        private final long expiresAtMillis;
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+        private VerifiedToken(UserDetails principal, String jti, long issuedAtMillis, long expiresAtMillis) {
+            this.principal = principal;
+            this.jti = jti;
+            this.issuedAtMillis = issuedAtMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
 
-                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                usernamePasswordAuthenticationToken
-                        .setDetails(new WebAuthenticationDetailsSource()
-                        .buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-            }
+    //An entry lives exactly as long as its token is valid
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.expiresAtMillis - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
         }
-        chain.doFilter(request, response);
     }
 }
@@ -1,6 +1,11 @@
 package com.itlize.korera.model;
 
+import com.itlize.korera.repository.TableVersions;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -8,10 +13,15 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "column")
 @Table(name="columns")
+@EntityListeners(TableVersions.Listener.class)
 public class Column {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "column_id_block")
+    @GenericGenerator(name = "column_id_block", strategy = "com.itlize.korera.util.BlockIdGenerator")
     @javax.persistence.Column(name="column_id", nullable = false, unique = true, updatable = false)
     private Integer columnId;
 
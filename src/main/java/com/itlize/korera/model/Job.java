@@ -0,0 +1,186 @@
+package com.itlize.korera.model;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import javax.persistence.Column;
+import java.time.LocalDateTime;
+
+/**
+ * A long-running operation submitted by a user and run in the background by the job service.
+ * The row tracks its status and progress, the work itself only lives on the node that runs it.
+ */
+@Entity
+@Table(name="job", indexes = {@Index(name = "idx_job_username", columnList = "username"),
+        @Index(name = "idx_job_node_status", columnList = "node, status")})
+public class Job {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "job_id_block")
+    @GenericGenerator(name = "job_id_block", strategy = "com.itlize.korera.util.BlockIdGenerator")
+    @Column(name="job_id", nullable = false, unique = true, updatable = false)
+    private Integer jobId;
+
+    @Column(name="type", nullable = false)
+    private String type;
+
+    @Column(name="username", nullable = false)
+    private String username;
+
+    @Column(name="node", nullable = false)
+    private String node;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name="status", nullable = false)
+    private JobStatus status;
+
+    @Column(name="processed")
+    private long processed;
+
+    @Column(name="total")
+    private long total;
+
+    @Column(name="cancel_requested")
+    private boolean cancelRequested;
+
+    @Column(name="result", length = 2000)
+    private String result;
+
+    @Column(name="error", length = 2000)
+    private String error;
+
+    @Column(name="time_created")
+    private LocalDateTime timeCreated;
+
+    @Column(name="time_started")
+    private LocalDateTime timeStarted;
+
+    @Column(name="time_finished")
+    private LocalDateTime timeFinished;
+
+    @Column(name="time_updated")
+    private LocalDateTime timeUpdated;
+
+    public Integer getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Integer jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getTimeCreated() {
+        return timeCreated;
+    }
+
+    public void setTimeCreated(LocalDateTime timeCreated) {
+        this.timeCreated = timeCreated;
+    }
+
+    public LocalDateTime getTimeStarted() {
+        return timeStarted;
+    }
+
+    public void setTimeStarted(LocalDateTime timeStarted) {
+        this.timeStarted = timeStarted;
+    }
+
+    public LocalDateTime getTimeFinished() {
+        return timeFinished;
+    }
+
+    public void setTimeFinished(LocalDateTime timeFinished) {
+        this.timeFinished = timeFinished;
+    }
+
+    public LocalDateTime getTimeUpdated() {
+        return timeUpdated;
+    }
+
+    public void setTimeUpdated(LocalDateTime timeUpdated) {
+        this.timeUpdated = timeUpdated;
+    }
+
+    @Override
+    public String toString() {
+        return "Job{" +
+                "jobId=" + jobId +
+                ", type='" + type + '\'' +
+                ", username='" + username + '\'' +
+                ", status=" + status +
+                ", processed=" + processed +
+                ", total=" + total +
+                '}';
+    }
+}
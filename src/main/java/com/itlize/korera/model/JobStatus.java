@@ -0,0 +1,9 @@
+package com.itlize.korera.model;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED
+}
@@ -1,8 +1,11 @@
 package com.itlize.korera.model;
 
-import com.fasterxml.jackson.annotation.JsonIdentityInfo;
-import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.itlize.korera.repository.TableVersions;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -12,11 +15,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
+@BatchSize(size = 100)
 @Table(name="project")
-@JsonIdentityInfo(generator= ObjectIdGenerators.IntSequenceGenerator.class, property = "@id")
+@EntityListeners(TableVersions.Listener.class)
 public class Project {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "project_id_block")
+    @GenericGenerator(name = "project_id_block", strategy = "com.itlize.korera.util.BlockIdGenerator")
     @Column(name="project_id", nullable = false, unique = true, updatable = false)
     private Integer projectId;
 
@@ -27,7 +33,9 @@ public class Project {
     @JoinColumn(name="user_id")
     private User user;
 
+    @JsonIgnore
     @OneToMany(fetch=FetchType.LAZY, mappedBy="project", cascade= CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<ProjectResource> projectResource;
 
     @CreatedDate
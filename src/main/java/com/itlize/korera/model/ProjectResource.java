@@ -1,8 +1,8 @@
 package com.itlize.korera.model;
 
-import com.fasterxml.jackson.annotation.JsonIdentityInfo;
-import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.itlize.korera.repository.TableVersions;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -12,10 +12,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name="project_resource")
-@JsonIdentityInfo(generator= ObjectIdGenerators.IntSequenceGenerator.class, property = "@id")
+@EntityListeners(TableVersions.Listener.class)
 public class ProjectResource {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "project_resource_id_block")
+    @GenericGenerator(name = "project_resource_id_block", strategy = "com.itlize.korera.util.BlockIdGenerator")
     @Column(name="project_resource_id", nullable = false, unique = true, updatable = false)
     private Integer projectResourceId;
 
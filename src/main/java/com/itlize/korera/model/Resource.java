@@ -1,8 +1,13 @@
 package com.itlize.korera.model;
 
-import com.fasterxml.jackson.annotation.JsonIdentityInfo;
-import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.itlize.korera.repository.TableVersions;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -12,11 +17,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "resource")
+@BatchSize(size = 100)
 @Table(name="resource")
-@JsonIdentityInfo(generator= ObjectIdGenerators.IntSequenceGenerator.class, property = "@id")
+@EntityListeners(TableVersions.Listener.class)
 public class Resource {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "resource_id_block")
+    @GenericGenerator(name = "resource_id_block", strategy = "com.itlize.korera.util.BlockIdGenerator")
     @Column(name="resource_id", nullable = false, unique = true, updatable = false)
     private Integer resourceId;
 
@@ -26,10 +36,14 @@ public class Resource {
     @Column(name="resource_code", nullable = false, unique = true)
     private  String resourceCode;
 
+    @JsonIgnore
     @OneToMany(fetch=FetchType.LAZY, mappedBy="resource", cascade= CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<com.itlize.korera.model.Column> columns;
 
+    @JsonIgnore
     @OneToMany(fetch=FetchType.LAZY, mappedBy="resource", cascade= CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<ProjectResource> projectResources;
 
     @CreatedDate
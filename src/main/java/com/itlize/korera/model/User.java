@@ -1,8 +1,12 @@
 package com.itlize.korera.model;
 
-import com.fasterxml.jackson.annotation.JsonIdentityInfo;
-import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.itlize.korera.repository.TableVersions;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -12,11 +16,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
+@BatchSize(size = 100)
 @Table(name="user")
-@JsonIdentityInfo(generator= ObjectIdGenerators.IntSequenceGenerator.class, property = "@id")
+@EntityListeners(TableVersions.Listener.class)
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "user_id_block")
+    @GenericGenerator(name = "user_id_block", strategy = "com.itlize.korera.util.BlockIdGenerator")
     @Column(name="user_id", nullable = false, unique = true, updatable = false)
     private Integer userId;
 
@@ -26,6 +33,7 @@ public class User {
     @Column(name="email", nullable = false, unique = true)
     private String email;
 
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(name="password", nullable = false)
     private String password;
 
@@ -50,7 +58,9 @@ public class User {
     @Column(name="time_updated")
     private LocalDateTime timeUpdated;
 
+    @JsonIgnore
     @OneToMany(fetch= FetchType.LAZY, mappedBy="user", cascade= CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<Project> projects;
 
     public Integer getUserId() {
@@ -3,20 +3,57 @@ package com.itlize.korera.repository;
 import com.itlize.korera.model.Column;
 import com.itlize.korera.model.ColumnType;
 import com.itlize.korera.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface ColumnRepository extends JpaRepository<Column,Integer> {
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Override
+    List<Column> findAll();
     boolean existsByContent(String content);
     boolean existsByColumnType(ColumnType type);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "catalog-lookups")})
     Optional<Column> findByContent(String content);
     Optional<Column> findByColumnType(ColumnType type);
+    List<Column> findAllByContentIn(Collection<String> contents);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<Column> findAllByColumnType(ColumnType type);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<Column> findAllByResource_ResourceName(String resourceName);
-    void  deleteByContent(String content);
-    void deleteByColumnType(ColumnType type);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Column c where c.content = :content")
+    void  deleteByContent(@Param("content") String content);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Column c where c.columnType = :type")
+    void deleteByColumnType(@Param("type") ColumnType type);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Column> findAllByOrderByColumnIdAsc(Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Column> findByColumnIdGreaterThanOrderByColumnIdAsc(Integer columnId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Column c where c.resource.resourceId in :resourceIds")
+    int deleteAllByResourceIds(@Param("resourceIds") Collection<Integer> resourceIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Column c where c.resource is not null")
+    int deleteAllWithResource();
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Column c")
+    int deleteAllInBulk();
 }
@@ -0,0 +1,61 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.model.Job;
+import com.itlize.korera.model.JobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Integer> {
+    List<Job> findByUsernameOrderByJobIdDesc(String username, Pageable pageable);
+
+    //Jobs a previous run of this node left behind, their work is gone with it
+    @Modifying
+    @Query("update Job j set j.status = :status, j.error = :error, j.timeFinished = :now, j.timeUpdated = :now"
+            + " where j.node = :node and j.status in :statuses")
+    int finishAbandoned(@Param("node") String node, @Param("statuses") Collection<JobStatus> statuses,
+                        @Param("status") JobStatus status, @Param("error") String error,
+                        @Param("now") LocalDateTime now);
+
+    //Status and progress changes only touch their own columns and only while the job is in an expected
+    //status, so a late write cannot undo a finish or a cancel request made elsewhere
+    @Modifying
+    @Query("update Job j set j.status = :status, j.timeStarted = :now, j.timeUpdated = :now"
+            + " where j.jobId = :id and j.status in :statuses")
+    int start(@Param("id") Integer id, @Param("statuses") Collection<JobStatus> statuses,
+              @Param("status") JobStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Job j set j.processed = :processed, j.total = :total, j.timeUpdated = :now"
+            + " where j.jobId = :id and j.status in :statuses")
+    int progress(@Param("id") Integer id, @Param("statuses") Collection<JobStatus> statuses,
+                 @Param("processed") long processed, @Param("total") long total, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Job j set j.cancelRequested = true, j.timeUpdated = :now"
+            + " where j.jobId = :id and j.status in :statuses")
+    int requestCancel(@Param("id") Integer id, @Param("statuses") Collection<JobStatus> statuses,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Job j set j.status = :status, j.result = :result, j.error = :error, j.timeFinished = :now,"
+            + " j.timeUpdated = :now where j.jobId = :id and j.status in :statuses")
+    int finish(@Param("id") Integer id, @Param("statuses") Collection<JobStatus> statuses,
+               @Param("status") JobStatus status, @Param("result") String result, @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    @Query("select j.cancelRequested from Job j where j.jobId = :id")
+    Boolean isCancelRequested(@Param("id") Integer id);
+
+    @Modifying
+    @Query("delete from Job j where j.timeFinished < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
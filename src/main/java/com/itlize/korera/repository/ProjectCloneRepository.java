@@ -0,0 +1,122 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.model.ProjectResource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies the project links of one project to another with one INSERT ... SELECT. The ids of the
+ * copies are a contiguous range reserved from the sequence table of the ProjectResource id
+ * generator, read from its persister, so they never collide with ids Hibernate hands out. Other
+ * databases (H2 in tests) get the ids from the generator itself and a batched insert.
+ * Runs in the caller's transaction, only the id reservation commits on its own.
+ */
+@Repository
+public class ProjectCloneRepository {
+
+    private static final String COPY = "INSERT INTO project_resource"
+            + " (project_resource_id, project_id, resource_id, time_created, time_updated)"
+            + " SELECT ? + ROW_NUMBER() OVER (ORDER BY pr.project_resource_id) - 1, ?, pr.resource_id, ?, ?"
+            + " FROM project_resource pr WHERE pr.project_id = ? ORDER BY pr.project_resource_id LIMIT ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reservation;
+    private volatile Boolean mysql;
+    private volatile String sequenceTable;
+
+    public ProjectCloneRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reservation = new TransactionTemplate(transactionManager);
+        this.reservation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    //Returns the number of links copied
+    public int copyLinks(Integer sourceProjectId, Integer targetProjectId, LocalDateTime now) {
+        Timestamp time = Timestamp.valueOf(now);
+        if (!isMysql()) {
+            return copyLinksOneByOne(sourceProjectId, targetProjectId, time);
+        }
+        //Locks the source links, so the copy below sees no more rows than ids were reserved. Rows are
+        //selected instead of counted, H2 (the tests) allows no FOR UPDATE on an aggregate
+        int count = jdbcTemplate.queryForList("SELECT project_resource_id FROM project_resource WHERE project_id = ?"
+                + " FOR UPDATE", Integer.class, sourceProjectId).size();
+        if (count == 0) {
+            return 0;
+        }
+        long firstId = reserveIds(count);
+        return jdbcTemplate.update(COPY, firstId, targetProjectId, time, time, sourceProjectId, count);
+    }
+
+    private long reserveIds(int count) {
+        String table = sequenceTable();
+        return reservation.execute(status -> {
+            while (true) {
+                Long next = jdbcTemplate.queryForObject("SELECT next_val FROM " + table, Long.class);
+                if (jdbcTemplate.update("UPDATE " + table + " SET next_val = ? WHERE next_val = ?",
+                        next + count, next) == 1) {
+                    return next;
+                }
+            }
+        });
+    }
+
+    private IdentifierGenerator idGenerator() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(ProjectResource.class).getIdentifierGenerator();
+    }
+
+    //The table the generator draws its blocks from, pooled-lo blocks start at next_val
+    private String sequenceTable() {
+        if (sequenceTable == null) {
+            IdentifierGenerator generator = idGenerator();
+            if (!(generator instanceof SequenceStyleGenerator)
+                    || ((SequenceStyleGenerator) generator).getDatabaseStructure().isPhysicalSequence()) {
+                throw new IllegalStateException("ProjectResource ids do not come from a sequence table");
+            }
+            sequenceTable = ((SequenceStyleGenerator) generator).getDatabaseStructure().getName();
+        }
+        return sequenceTable;
+    }
+
+    private int copyLinksOneByOne(Integer sourceProjectId, Integer targetProjectId, Timestamp time) {
+        List<Integer> resourceIds = jdbcTemplate.queryForList(
+                "SELECT resource_id FROM project_resource WHERE project_id = ? ORDER BY project_resource_id",
+                Integer.class, sourceProjectId);
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = idGenerator();
+        List<Object[]> rows = new ArrayList<>();
+        for (Integer resourceId : resourceIds) {
+            Object id = generator.generate(session, null);
+            rows.add(new Object[]{id, targetProjectId, resourceId, time, time});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO project_resource"
+                + " (project_resource_id, project_id, resource_id, time_created, time_updated) VALUES (?, ?, ?, ?, ?)", rows);
+        return rows.size();
+    }
+
+    private boolean isMysql() {
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().startsWith("MySQL"));
+        }
+        return mysql;
+    }
+}
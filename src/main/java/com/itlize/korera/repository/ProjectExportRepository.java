@@ -0,0 +1,58 @@
+package com.itlize.korera.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the project, resource and column sheet through a forward-only cursor, one row per column
+ * (or per resource without columns, or per project without resources). On MySQL the driver streams
+ * rows one by one, other drivers fetch fetch-size rows at a time, so memory does not grow with the export.
+ */
+@Repository
+public class ProjectExportRepository {
+
+    public static final String[] COLUMNS = {"project_id", "project_name", "username", "resource_id",
+            "resource_name", "resource_code", "column_id", "content", "column_type"};
+
+    private static final String SELECT = "SELECT p.project_id, p.project_name, u.username, r.resource_id,"
+            + " r.resource_name, r.resource_code, c.column_id, c.content, c.column_type"
+            + " FROM project p LEFT JOIN user u ON u.user_id = p.user_id"
+            + " LEFT JOIN project_resource pr ON pr.project_id = p.project_id"
+            + " LEFT JOIN resource r ON r.resource_id = pr.resource_id"
+            + " LEFT JOIN columns c ON c.resource_id = r.resource_id";
+    private static final String ORDER = " ORDER BY p.project_id, pr.project_resource_id, c.column_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public ProjectExportRepository(JdbcTemplate jdbcTemplate, @Value("${korera.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    //All projects when projectName is null
+    public void forEachRow(String projectName, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    projectName == null ? SELECT + ORDER : SELECT + " WHERE p.project_name = ?" + ORDER,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize(connection));
+            if (projectName != null) {
+                statement.setString(1, projectName);
+            }
+            return statement;
+        }, handler);
+    }
+
+    //Connector/J only streams with Integer.MIN_VALUE, any other fetch size reads the whole result first
+    private int fetchSize(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().startsWith("MySQL") ? Integer.MIN_VALUE : fetchSize;
+    }
+}
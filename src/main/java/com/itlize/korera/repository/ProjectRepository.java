@@ -2,16 +2,48 @@ package com.itlize.korera.repository;
 
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface ProjectRepository extends JpaRepository<Project,Integer> {
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Override
+    List<Project> findAll();
     boolean existsByProjectName(String name);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<Project> findAllByUser_Username(String username);
     Optional<Project> findByProjectName(String projectName);
     void deleteByProjectName(String projectName);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Project> findAllByOrderByProjectIdAsc(Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Project> findByProjectIdGreaterThanOrderByProjectIdAsc(Integer projectId, Pageable pageable);
+
+    @Query("select p.projectId from Project p where p.user.userId in :userIds")
+    List<Integer> findIdsByUserIds(@Param("userIds") Collection<Integer> userIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Project p where p.projectId in :projectIds")
+    int deleteAllByProjectIds(@Param("projectIds") Collection<Integer> projectIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Project p where p.user.userId in :userIds")
+    int deleteAllByUserIds(@Param("userIds") Collection<Integer> userIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Project p where p.user is not null")
+    int deleteAllWithUser();
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Project p")
+    int deleteAllInBulk();
 }
@@ -1,19 +1,81 @@
 package com.itlize.korera.repository;
 
+import com.itlize.korera.dto.ProjectResourceRow;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.ProjectResource;
 import com.itlize.korera.model.Resource;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface ProjectResourceRepository extends JpaRepository<ProjectResource,Integer> {
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Override
+    List<ProjectResource> findAll();
+    @EntityGraph(attributePaths = {"project", "project.user", "resource"})
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<ProjectResource> findByProject_ProjectName(String projectName);
+    @EntityGraph(attributePaths = {"project", "project.user", "resource"})
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     List<ProjectResource> findByResource_ResourceName(String resourceName);
     ProjectResource findByProject(Project project);
-    void deleteByProject_ProjectName(String projectName);
-    void deleteByResource_ResourceName(String resourceName);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.project.projectId in "
+            + "(select p.projectId from Project p where p.projectName = :projectName)")
+    void deleteByProject_ProjectName(@Param("projectName") String projectName);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.resource.resourceId in "
+            + "(select r.resourceId from Resource r where r.resourceName = :resourceName)")
+    void deleteByResource_ResourceName(@Param("resourceName") String resourceName);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.projectResourceId = :projectResourceId")
+    int deleteByProjectResourceId(@Param("projectResourceId") Integer projectResourceId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.project.projectId in :projectIds")
+    int deleteAllByProjectIds(@Param("projectIds") Collection<Integer> projectIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.resource.resourceId in :resourceIds")
+    int deleteAllByResourceIds(@Param("resourceIds") Collection<Integer> resourceIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.project.projectId in "
+            + "(select p.projectId from Project p where p.user is not null)")
+    int deleteAllWithUserProject();
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.project is not null")
+    int deleteAllWithProject();
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr where pr.resource is not null")
+    int deleteAllWithResource();
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProjectResource pr")
+    int deleteAllInBulk();
+
+    @Query("select pr.resource.resourceId from ProjectResource pr where pr.project.projectId = :projectId")
+    List<Integer> findResourceIdsByProjectId(@Param("projectId") Integer projectId);
+
+    @Query("select pr.projectResourceId as projectResourceId, p.projectId as projectId, p.projectName as projectName, "
+            + "r.resourceId as resourceId, r.resourceName as resourceName, r.resourceCode as resourceCode, "
+            + "pr.timeCreated as timeCreated, pr.timeUpdated as timeUpdated "
+            + "from ProjectResource pr join pr.project p left join pr.resource r "
+            + "where p.projectName = :projectName order by pr.projectResourceId")
+    List<ProjectResourceRow> findRowsByProjectName(@Param("projectName") String projectName);
+
+    @Query("select pr.projectResourceId as projectResourceId, p.projectId as projectId, p.projectName as projectName, "
+            + "r.resourceId as resourceId, r.resourceName as resourceName, r.resourceCode as resourceCode, "
+            + "pr.timeCreated as timeCreated, pr.timeUpdated as timeUpdated "
+            + "from ProjectResource pr left join pr.project p join pr.resource r "
+            + "where r.resourceName = :resourceName order by pr.projectResourceId")
+    List<ProjectResourceRow> findRowsByResourceName(@Param("resourceName") String resourceName);
 
 }
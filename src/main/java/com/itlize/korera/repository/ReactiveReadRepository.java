@@ -0,0 +1,76 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.model.ColumnType;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking reads of the listing endpoints over R2DBC. Rows are mapped straight to views and
+ * emitted as the driver reads them, no entities and no persistence context are involved.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveReadRepository {
+
+    @Autowired
+    private final DatabaseClient databaseClient;
+
+    public Flux<ResourceView> findAllResources() {
+        return databaseClient.sql("SELECT r.resource_id, r.resource_name, r.resource_code, r.time_created, r.time_updated"
+                        + " FROM resource r ORDER BY r.resource_id")
+                .map((row, metadata) -> resourceView(row))
+                .all();
+    }
+
+    public Flux<ResourceView> findResourcesByProjectName(String projectName) {
+        return databaseClient.sql("SELECT r.resource_id, r.resource_name, r.resource_code, r.time_created, r.time_updated"
+                        + " FROM project_resource pr JOIN project p ON p.project_id = pr.project_id"
+                        + " JOIN resource r ON r.resource_id = pr.resource_id"
+                        + " WHERE p.project_name = :projectName ORDER BY pr.project_resource_id")
+                .bind("projectName", projectName)
+                .map((row, metadata) -> resourceView(row))
+                .all();
+    }
+
+    public Flux<ProjectView> findProjectsByUsername(String username) {
+        return databaseClient.sql("SELECT p.project_id, p.project_name, u.username, p.time_created, p.time_updated"
+                        + " FROM project p JOIN user u ON u.user_id = p.user_id"
+                        + " WHERE u.username = :username ORDER BY p.project_id")
+                .bind("username", username)
+                .map((row, metadata) -> new ProjectView(row.get("project_id", Integer.class),
+                        row.get("project_name", String.class), row.get("username", String.class),
+                        row.get("time_created", LocalDateTime.class), row.get("time_updated", LocalDateTime.class)))
+                .all();
+    }
+
+    public Flux<ColumnView> findColumnsByResourceName(String resourceName) {
+        return databaseClient.sql("SELECT c.column_id, c.content, c.column_type, r.resource_id, r.resource_name,"
+                        + " c.time_created, c.time_updated"
+                        + " FROM columns c JOIN resource r ON r.resource_id = c.resource_id"
+                        + " WHERE r.resource_name = :resourceName ORDER BY c.column_id")
+                .bind("resourceName", resourceName)
+                .map((row, metadata) -> {
+                    String columnType = row.get("column_type", String.class);
+                    return new ColumnView(row.get("column_id", Integer.class), row.get("content", String.class),
+                            columnType == null ? null : ColumnType.valueOf(columnType),
+                            row.get("resource_id", Integer.class), row.get("resource_name", String.class),
+                            row.get("time_created", LocalDateTime.class), row.get("time_updated", LocalDateTime.class));
+                })
+                .all();
+    }
+
+    private static ResourceView resourceView(Row row) {
+        return new ResourceView(row.get("resource_id", Integer.class), row.get("resource_name", String.class),
+                row.get("resource_code", String.class), row.get("time_created", LocalDateTime.class),
+                row.get("time_updated", LocalDateTime.class));
+    }
+}
@@ -2,15 +2,54 @@ package com.itlize.korera.repository;
 
 import com.itlize.korera.model.Resource;
 import com.itlize.korera.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface ResourceRepository extends JpaRepository<Resource,Integer> {
+    //Listings are only read, so Hibernate keeps no dirty-checking snapshots for them. The HINT_READONLY
+    //finders of the other repositories are read-only for the same reason
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Override
+    List<Resource> findAll();
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "catalog-lookups")})
     Optional<Resource> findByResourceName(String resourceName);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "catalog-lookups")})
     Optional<Resource> findByResourceCode(String resourceCode);
+    //Imports load the existing rows of a whole chunk at once, managed so they can be updated
+    List<Resource> findAllByResourceNameIn(Collection<String> resourceNames);
+    List<Resource> findAllByResourceCodeIn(Collection<String> resourceCodes);
     void deleteByResourceName(String resourceName);
     void deleteByResourceCode(String resourceCode);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Resource> findAllByOrderByResourceIdAsc(Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Resource> findByResourceIdGreaterThanOrderByResourceIdAsc(Integer resourceId, Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Resource> findAllByOrderByResourceNameAsc(Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<Resource> findByResourceNameGreaterThanOrderByResourceNameAsc(String resourceName, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Resource r where r.resourceId in :resourceIds")
+    int deleteAllByResourceIds(@Param("resourceIds") Collection<Integer> resourceIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Resource r")
+    int deleteAllInBulk();
 }
@@ -0,0 +1,133 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.util.Chunks;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Multi-row upserts of resources keyed by resource_code, bypassing the persistence context.
+ * MySQL gets INSERT ... ON DUPLICATE KEY UPDATE, other databases (H2 in tests) MERGE ... USING.
+ * Nothing is locked ahead of the write (locking codes that do not exist yet takes gap locks that
+ * deadlock concurrent upserts). A row whose name was given to another code since it was read is
+ * left as it is: MySQL matches it on the resource_name key and the update is guarded by the code,
+ * MERGE filters it out. Callers read the codes back to tell inserts, updates and such conflicts apart.
+ * Ids of new rows come from the entity's own id generator, so they do not collide with ids handed out
+ * by Hibernate; existing rows keep their id and time_created. Runs in the caller's transaction.
+ */
+@Repository
+public class ResourceUpsertRepository {
+
+    private static final String COLUMNS = "(resource_id, resource_name, resource_code, time_created, time_updated)";
+    private static final String ROW = "(?, ?, ?, ?, ?)";
+    //Only the row of the same code is updated, not one that shares the name
+    private static final String MYSQL_UPDATE = " ON DUPLICATE KEY UPDATE"
+            + " resource_name = IF(resource_code = incoming.resource_code, incoming.resource_name, resource_name),"
+            + " time_updated = IF(resource_code = incoming.resource_code, incoming.time_updated, time_updated)";
+    //H2 names the columns of VALUES C1 to C5, rows whose name belongs to another code are left out
+    private static final String MERGE_USING = "MERGE INTO resource USING (SELECT C1 AS resource_id,"
+            + " C2 AS resource_name, C3 AS resource_code, C4 AS time_created, C5 AS time_updated FROM (VALUES %s) v"
+            + " WHERE NOT EXISTS (SELECT 1 FROM resource taken WHERE taken.resource_name = v.C2"
+            + " AND taken.resource_code <> v.C3)) incoming ON resource.resource_code = incoming.resource_code"
+            + " WHEN MATCHED THEN UPDATE SET resource_name = incoming.resource_name,"
+            + " time_updated = incoming.time_updated"
+            + " WHEN NOT MATCHED THEN INSERT " + COLUMNS + " VALUES (incoming.resource_id, incoming.resource_name,"
+            + " incoming.resource_code, incoming.time_created, incoming.time_updated)";
+    private static final String SELECT = "SELECT resource_id, resource_name, resource_code, time_created, time_updated"
+            + " FROM resource WHERE ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int rowsPerStatement;
+    private volatile Boolean mysql;
+
+    public ResourceUpsertRepository(JdbcTemplate jdbcTemplate,
+                                    @Value("${korera.upsert.rows-per-statement:1000}") int rowsPerStatement) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    //Existing rows with one of the codes or names, read without locks. Reads after an upsert in the same
+    //transaction see the rows it wrote
+    public List<ResourceView> findByCodesOrNames(List<String> codes, List<String> names) {
+        List<ResourceView> rows = new ArrayList<>();
+        for (List<String> chunk : Chunks.of(codes, rowsPerStatement)) {
+            rows.addAll(find("resource_code", chunk));
+        }
+        for (List<String> chunk : Chunks.of(names, rowsPerStatement)) {
+            rows.addAll(find("resource_name", chunk));
+        }
+        return rows;
+    }
+
+    public Integer nextId(Resource resource) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return (Integer) session.getFactory().getMetamodel().entityPersister(Resource.class)
+                .getIdentifierGenerator().generate(session, resource);
+    }
+
+    //Writes the rows, rowsPerStatement at a time. Rows should come ordered by code, so concurrent upserts
+    //lock their keys in the same order
+    public void upsert(List<Resource> resources) {
+        for (List<Resource> chunk : Chunks.of(resources, rowsPerStatement)) {
+            String values = String.join(", ", Collections.nCopies(chunk.size(), ROW));
+            String sql = isMysql()
+                    ? "INSERT INTO resource " + COLUMNS + " VALUES " + values + " AS incoming" + MYSQL_UPDATE
+                    : String.format(MERGE_USING, values);
+            Object[] args = new Object[chunk.size() * 5];
+            for (int i = 0; i < chunk.size(); i++) {
+                Resource resource = chunk.get(i);
+                args[i * 5] = resource.getResourceId();
+                args[i * 5 + 1] = resource.getResourceName();
+                args[i * 5 + 2] = resource.getResourceCode();
+                args[i * 5 + 3] = Timestamp.valueOf(resource.getTimeCreated());
+                args[i * 5 + 4] = Timestamp.valueOf(resource.getTimeUpdated());
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+    //Native writes skip Hibernate's cache invalidation, drop the cached rows and lookups by hand
+    public void evictCaches(Collection<Integer> updatedIds) {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        for (Integer id : updatedIds) {
+            sessionFactory.getCache().evictEntityData(Resource.class, id);
+        }
+        sessionFactory.getCache().evictQueryRegion("catalog-lookups");
+    }
+
+    private List<ResourceView> find(String column, List<String> keys) {
+        String in = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        return jdbcTemplate.query(SELECT + column + " IN (" + in + ")",
+                (resultSet, rowNumber) -> new ResourceView(resultSet.getInt("resource_id"),
+                        resultSet.getString("resource_name"), resultSet.getString("resource_code"),
+                        resultSet.getTimestamp("time_created") == null ? null
+                                : resultSet.getTimestamp("time_created").toLocalDateTime(),
+                        resultSet.getTimestamp("time_updated") == null ? null
+                                : resultSet.getTimestamp("time_updated").toLocalDateTime()),
+                keys.toArray());
+    }
+
+    private boolean isMysql() {
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().startsWith("MySQL"));
+        }
+        return mysql;
+    }
+}
@@ -0,0 +1,178 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.util.AfterCommit;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Version of a table's content, made of its row count and latest time_updated, so every insert,
+ * update or delete changes it. Cached versions are read from the primary pool, without pinning the
+ * request to the primary, and reused for version-ttl; changes made through this node drop the table's
+ * version once they are committed (see Listener and BulkDeleter), changes made elsewhere are seen after
+ * at most version-ttl. A read that raced with a drop is used once but not cached.
+ * Listing endpoints answer 304 when the client holds the cached versions, and otherwise send the listing
+ * tagged with the versions read in its own transaction (see snapshot), so a lagging replica's rows never
+ * carry the primary's newer version.
+ */
+@Repository
+public class TableVersions {
+
+    public static final String USER = "user";
+    public static final String PROJECT = "project";
+    public static final String RESOURCE = "resource";
+    public static final String COLUMNS = "columns";
+    public static final String PROJECT_RESOURCE = "project_resource";
+
+    private static final List<String> TABLES = Arrays.asList(USER, PROJECT, RESOURCE, COLUMNS, PROJECT_RESOURCE);
+
+    //Statements of the current transaction, on its connection
+    private final JdbcTemplate jdbcTemplate;
+    //Cached versions, read outside of any transaction on a primary connection of their own
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final long ttlNanos;
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    public TableVersions(JdbcTemplate jdbcTemplate, @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                         @Value("${korera.etag.version-ttl:1s}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    //Strong ETag for the representation named key, built from the cached versions of the given tables
+    public String etag(String key, String... tables) {
+        return etag(key, tables, this::version);
+    }
+
+    //Runs listing in a read-only transaction and tags it with the versions read first in that transaction.
+    //Version and rows come from the same database, a change committed in between only makes the ETag older
+    //than the rows, which costs the client one more 200
+    @Transactional(readOnly = true)
+    public <T> Snapshot<T> snapshot(String key, Supplier<T> listing, String... tables) {
+        String etag = etag(key, tables, table -> read(jdbcTemplate, checked(table)));
+        return new Snapshot<>(etag, listing.get());
+    }
+
+    public String version(String table) {
+        checked(table);
+        long now = System.nanoTime();
+        Version cached = versions.get(table);
+        if (cached != null && cached.value != null && now - cached.readAt <= ttlNanos) {
+            return cached.value;
+        }
+        Version version = new Version(read(primaryJdbcTemplate, table), now);
+        //Not cached when the table was dropped meanwhile, the read may predate the change
+        if (cached == null) {
+            versions.putIfAbsent(table, version);
+        } else {
+            versions.replace(table, cached, version);
+        }
+        return version.value;
+    }
+
+    //Drops the versions at once, call it after the change is committed (see invalidateAfterCommit)
+    public void invalidate(String... tables) {
+        for (String table : tables) {
+            versions.put(checked(table), new Version(null, System.nanoTime()));
+        }
+    }
+
+    //Drops the versions once the current transaction has committed, right away outside of one. Dropping
+    //them earlier lets another request cache the version from before the commit
+    public void invalidateAfterCommit(String... tables) {
+        AfterCommit.run(() -> invalidate(tables));
+    }
+
+    private static String etag(String key, String[] tables, UnaryOperator<String> version) {
+        StringBuilder etag = new StringBuilder("\"").append(Integer.toHexString(key.hashCode()));
+        for (String table : tables) {
+            etag.append('-').append(version.apply(table));
+        }
+        return etag.append('"').toString();
+    }
+
+    private static String checked(String table) {
+        if (!TABLES.contains(table)) {
+            throw new IllegalArgumentException("Table \"" + table + "\" has no version.");
+        }
+        return table;
+    }
+
+    private static String read(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(time_updated) FROM " + table, (rs, rowNum) -> {
+            Timestamp updated = rs.getTimestamp(2);
+            long micros = updated == null ? 0 : updated.getTime() / 1000 * 1_000_000 + updated.getNanos() / 1000;
+            return Long.toString(rs.getLong(1), 36) + "." + Long.toString(micros, 36);
+        });
+    }
+
+    //A dropped version has no value, it is only kept so a read that started before the drop is not cached
+    private static class Version {
+        final String value;
+        final long readAt;
+
+        Version(String value, long readAt) {
+            this.value = value;
+            this.readAt = readAt;
+        }
+    }
+
+    public static class Snapshot<T> {
+        private final String etag;
+        private final T body;
+
+        Snapshot(String etag, T body) {
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public T getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Entity listener dropping the version of the entity's table once an insert, update or delete of one
+     * is committed.
+     * Created by Hibernate through Spring, so it can be autowired.
+     */
+    public static class Listener {
+
+        @Autowired
+        private TableVersions tableVersions;
+
+        @PostPersist
+        @PostUpdate
+        @PostRemove
+        public void changed(Object entity) {
+            Class<?> type = Hibernate.getClass(entity);
+            Table table = type.getAnnotation(Table.class);
+            if (table != null) {
+                tableVersions.invalidateAfterCommit(table.name());
+            }
+        }
+    }
+}
@@ -1,14 +1,38 @@
 package com.itlize.korera.repository;
 
 import com.itlize.korera.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Override
+    List<User> findAll();
     Optional<User> findByUsername(String username);
     void deleteByUsername(String username);
     boolean existsByUsername(String username);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<User> findAllByOrderByUserIdAsc(Pageable pageable);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    List<User> findByUserIdGreaterThanOrderByUserIdAsc(Integer userId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u where u.userId in :userIds")
+    int deleteAllByUserIds(@Param("userIds") Collection<Integer> userIds);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u")
+    int deleteAllInBulk();
 }
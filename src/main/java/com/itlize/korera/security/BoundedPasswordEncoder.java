@@ -0,0 +1,155 @@
+package com.itlize.korera.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt on a dedicated, bounded executor instead of the request threads. At most
+ * korera.password.threads hashes run at once and korera.password.queue-capacity wait, beyond that
+ * PasswordHashingBusyException answers 503 so a login burst cannot take every request thread.
+ * The cost is calibrated at startup to take about korera.password.target-millis per hash, unless
+ * korera.password.cost is set, and passwords stored with another cost are rehashed on login.
+ * Queue and compute times are recorded as korera.password.queue and korera.password.compute.
+ */
+@Component
+@Slf4j // logs
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final int CALIBRATION_COST = 10;
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(MeterRegistry meterRegistry,
+                                  @Value("${korera.password.threads:0}") int threads,
+                                  @Value("${korera.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${korera.password.cost:0}") int cost,
+                                  @Value("${korera.password.target-millis:250}") long targetMillis,
+                                  @Value("${korera.password.min-cost:10}") int minCost,
+                                  @Value("${korera.password.max-cost:14}") int maxCost) {
+        this.meterRegistry = meterRegistry;
+        this.cost = cost > 0 ? cost : calibrate(targetMillis, minCost, maxCost);
+        this.bcrypt = new BCryptPasswordEncoder(this.cost);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejected = Counter.builder("korera.password.rejected").register(meterRegistry);
+        Gauge.builder("korera.password.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        log.info("Hashing passwords with BCrypt cost " + this.cost + " on " + poolSize + " threads.");
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash("encode", () -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash("matches", () -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    //Called by DaoAuthenticationProvider after a successful login to rehash with the current cost.
+    //Only upgrades, nodes calibrated to different costs would otherwise rehash each other's hashes
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        Integer storedCost = costOf(encodedPassword);
+        return storedCost != null && storedCost < cost;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T hash(String operation, Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long started = System.nanoTime();
+                timer("korera.password.queue", operation).record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return work.call();
+                } finally {
+                    timer("korera.password.compute", operation)
+                            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException();
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Timer timer(String name, String operation) {
+        return Timer.builder(name).tag("operation", operation).register(meterRegistry);
+    }
+
+    //Every extra cost round doubles the hashing time, so one measurement is enough
+    private static int calibrate(long targetMillis, int minCost, int maxCost) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(CALIBRATION_COST);
+        probe.encode("calibration");
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            probe.encode("calibration");
+        }
+        double millis = Math.max(1, (System.nanoTime() - start) / 3 / 1_000_000.0);
+        int calibrated = CALIBRATION_COST + (int) Math.round(Math.log(targetMillis / millis) / Math.log(2));
+        int bounded = Math.max(minCost, Math.min(maxCost, calibrated));
+        log.info("BCrypt cost " + CALIBRATION_COST + " takes " + Math.round(millis) + " ms, using cost "
+                + bounded + " for a target of " + targetMillis + " ms.");
+        return bounded;
+    }
+
+    //Cost of a hash like $2a$10$..., null if it is not a BCrypt hash
+    private static Integer costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(3) != '$') {
+            return null;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.itlize.korera.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+//Thrown when the password hashing queue is full, the client should retry later
+public class PasswordHashingBusyException extends ResponseStatusException {
+
+    public PasswordHashingBusyException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins at the moment, please try again.");
+    }
+}
@@ -0,0 +1,158 @@
+package com.itlize.korera.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.itlize.korera.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and redeems refresh tokens, so clients renew their access token without sending the
+ * password through BCrypt again. Refresh tokens are single use: redeeming one returns a new access
+ * token and a new refresh token, and a refresh token presented a second time is rejected.
+ * The algorithm and verifier are built once, redeemed token ids are remembered until the token
+ * would have expired anyway, at most refresh-redeemed-max-size of them.
+ * The signing key korera.jwt.refresh-secret has no default and must come from the environment.
+ */
+@Service
+@Slf4j // logs
+public class RefreshTokenService {
+
+    public static final String ACCESS_TOKEN = "access_token";
+    public static final String REFRESH_TOKEN = "refresh_token";
+    private static final String TYPE_CLAIM = "typ";
+    private static final String REFRESH_TYPE = "refresh";
+    //HS256 keys should be at least as long as the hash
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final JwtUtil jwtUtil;
+    private final UserDetailsService userDetailsService;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Duration validity;
+    private final Cache<String, Long> redeemed;
+
+    public RefreshTokenService(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                               TokenRevocationStore tokenRevocationStore,
+                               @Value("${korera.jwt.refresh-secret:}") String secret,
+                               @Value("${korera.jwt.refresh-validity:7d}") Duration validity,
+                               @Value("${korera.jwt.refresh-redeemed-max-size:500000}") long redeemedMaxSize) {
+        if (secret.trim().length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("korera.jwt.refresh-secret must be set to a key of at least "
+                    + MIN_SECRET_LENGTH + " characters, e.g. through KORERA_JWT_REFRESH_SECRET.");
+        }
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.algorithm = Algorithm.HMAC256(secret.getBytes());
+        this.verifier = JWT.require(algorithm).withClaim(TYPE_CLAIM, REFRESH_TYPE).build();
+        this.validity = validity;
+        this.redeemed = Caffeine.newBuilder()
+                .maximumSize(redeemedMaxSize)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String jti, Long expiresAtMillis, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAtMillis - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String jti, Long expiresAtMillis, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String jti, Long expiresAtMillis, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener(RefreshTokenService::forgotten)
+                .build();
+    }
+
+    public String issue(String username) {
+        long now = System.currentTimeMillis();
+        return JWT.create()
+                .withSubject(username)
+                .withJWTId(UUID.randomUUID().toString())
+                .withClaim(TYPE_CLAIM, REFRESH_TYPE)
+                .withClaim(JwtUtil.ISSUED_AT_MILLIS_CLAIM, now)
+                .withIssuedAt(new Date(now))
+                .withExpiresAt(new Date(now + validity.toMillis()))
+                .sign(algorithm);
+    }
+
+    //The user is read again so a deleted user cannot refresh and role changes are picked up
+    public Map<String, String> refresh(String refreshToken) {
+        DecodedJWT decoded = verify(refreshToken);
+        if (tokenRevocationStore.isRevoked(decoded.getId(), decoded.getSubject(), issuedAtMillis(decoded))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token was revoked.");
+        }
+        if (decoded.getId() == null
+                || redeemed.asMap().putIfAbsent(decoded.getId(), decoded.getExpiresAt().getTime()) != null) {
+            log.warn("Refresh token " + decoded.getId() + " of " + decoded.getSubject() + " was already used.");
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token was already used.");
+        }
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(decoded.getSubject());
+        } catch (UsernameNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token.");
+        }
+        Map<String, String> tokens = new HashMap<>();
+        tokens.put(ACCESS_TOKEN, jwtUtil.generateToken(userDetails));
+        tokens.put(REFRESH_TOKEN, issue(userDetails.getUsername()));
+        return tokens;
+    }
+
+    //Logout, the refresh token cannot be redeemed anymore
+    public void revoke(String refreshToken) {
+        DecodedJWT decoded = verify(refreshToken);
+        tokenRevocationStore.revokeToken(decoded.getId(), decoded.getExpiresAt().getTime());
+    }
+
+    private static void forgotten(String jti, Long expiresAtMillis, RemovalCause cause) {
+        if (cause == RemovalCause.SIZE) {
+            log.warn("Forgot redeemed refresh token " + jti + " before its expiry, raise"
+                    + " korera.jwt.refresh-redeemed-max-size.");
+        }
+    }
+
+    private static long issuedAtMillis(DecodedJWT decoded) {
+        Long millis = decoded.getClaim(JwtUtil.ISSUED_AT_MILLIS_CLAIM).asLong();
+        if (millis != null) {
+            return millis;
+        }
+        return decoded.getIssuedAt() == null ? 0 : decoded.getIssuedAt().getTime();
+    }
+
+    private DecodedJWT verify(String refreshToken) {
+        try {
+            return verifier.verify(refreshToken);
+        } catch (JWTVerificationException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token.");
+        }
+    }
+}
@@ -12,10 +12,8 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -30,6 +28,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private UserDetailsServiceImpl userDetailsService;
     @Autowired
     private JwtRequestFilter jwtRequestFilter;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
 
     @Override
     @Bean
@@ -42,12 +42,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     //Authentication
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
-    }
-
-    @Bean
-    public PasswordEncoder passwordEncoder (){
-        return new BCryptPasswordEncoder();
+        //BoundedPasswordEncoder, userDetailsService also rehashes passwords with an outdated cost on login
+        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
     }
 
 
@@ -59,14 +55,14 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                 .antMatchers("/user/login").permitAll()// Allow  access to login path
                 .antMatchers("/user/register").permitAll() // Allow access to register path
+                .antMatchers("/user/token/refresh").permitAll() // The refresh token is checked by the endpoint
+                .antMatchers("/user/logout").permitAll() // The endpoint checks the token, expired ones log out too
                 .antMatchers(GET,"korera/user/**").hasAnyAuthority("ROLE")
                 .antMatchers("/user/admin/**").hasRole("ADMIN")
                 .anyRequest().fullyAuthenticated()// others need to be accessed after authentication
                 .and()
-                .logout().permitAll()
-                // redirect to the login page
-                .logoutRequestMatcher(new AntPathRequestMatcher("user/logout","POST"))
-                .and()
+                // tokens are revoked by /user/logout, there is no session to end
+                .logout().disable()
                 .exceptionHandling().and()
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
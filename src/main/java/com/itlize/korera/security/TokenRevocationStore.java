@@ -0,0 +1,170 @@
+package com.itlize.korera.security;
+
+import com.itlize.korera.util.BloomFilter;
+import com.itlize.korera.util.HierarchicalTimingWheel;
+import com.itlize.korera.util.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revoked tokens, checked for every authenticated request and every refresh.
+ * Single tokens are revoked by their jti until they expire (logout). All tokens of a user issued
+ * up to a cutoff are revoked at once on password, role or username change, the cutoff is kept
+ * until the longest lived token issued before it has expired. Deleting all users sets a cutoff
+ * for every token. Cutoffs are compared with the millisecond issue time of the token
+ * (JwtUtil.ISSUED_AT_MILLIS_CLAIM), so tokens issued right after a change stay valid.
+ * A Bloom filter answers the common "not revoked" case without touching the exact maps, only
+ * filter hits are looked up. Expired revocations leave the maps through a timing wheel and the
+ * filter is rebuilt from the live revocations, so memory follows the number of live revocations.
+ * State is kept in memory per instance.
+ */
+@Component
+@Slf4j // logs
+public class TokenRevocationStore implements DisposableBean {
+
+    private static final char TOKEN = 't';
+    private static final char USER = 'u';
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> userCutoffs = new ConcurrentHashMap<>();
+    //Never needs to expire, once it is older than the longest token validity nothing is before it
+    private volatile long globalCutoff;
+    private final HierarchicalTimingWheel<Revocation> expiries;
+    private final long cutoffRetentionMillis;
+    private final Counter falsePositives;
+    private final ScheduledExecutorService ticker;
+    private volatile BloomFilter bloomFilter = new BloomFilter(MIN_CAPACITY);
+    private int expiredSinceRebuild;
+
+    public TokenRevocationStore(MeterRegistry meterRegistry,
+                                @Value("${korera.jwt.refresh-validity:7d}") Duration refreshValidity) {
+        this.cutoffRetentionMillis = Math.max(JwtUtil.TOKEN_VALIDITY_MILLIS, refreshValidity.toMillis());
+        this.expiries = new HierarchicalTimingWheel<>(1000, System.currentTimeMillis());
+        this.falsePositives = Counter.builder("korera.auth.revocation.false-positives").register(meterRegistry);
+        Gauge.builder("korera.auth.revocations", revokedTokens, Map::size).tag("kind", "token")
+                .register(meterRegistry);
+        Gauge.builder("korera.auth.revocations", userCutoffs, Map::size).tag("kind", "user")
+                .register(meterRegistry);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.SECONDS);
+    }
+
+    //Revokes one token until it expires on its own
+    public synchronized void revokeToken(String jti, long expiresAtMillis) {
+        if (jti == null || !expiries.add(new Revocation(TOKEN, jti, expiresAtMillis), expiresAtMillis)) {
+            return;
+        }
+        revokedTokens.merge(jti, expiresAtMillis, Math::max);
+        addToFilter(TOKEN, jti);
+    }
+
+    //Revokes every token of the user issued up to now
+    public synchronized void revokeAllOf(String username) {
+        long cutoff = System.currentTimeMillis();
+        Long previous = userCutoffs.get(username);
+        if (previous != null && previous >= cutoff) {
+            return;
+        }
+        userCutoffs.put(username, cutoff);
+        expiries.add(new Revocation(USER, username, cutoff), cutoff + cutoffRetentionMillis);
+        addToFilter(USER, username);
+        log.info("Revoked all tokens of " + username + " issued until " + cutoff + ".");
+    }
+
+    //Revokes every token issued up to now, of all users
+    public void revokeAll() {
+        globalCutoff = System.currentTimeMillis();
+        log.info("Revoked all tokens issued until " + globalCutoff + ".");
+    }
+
+    public boolean isRevoked(String jti, String username, long issuedAtMillis) {
+        if (issuedAtMillis <= globalCutoff) {
+            return true;
+        }
+        BloomFilter filter = bloomFilter;
+        if (jti != null && filter.mightContain(TOKEN, jti)) {
+            if (revokedTokens.containsKey(jti)) {
+                return true;
+            }
+            falsePositives.increment();
+        }
+        if (username != null && filter.mightContain(USER, username)) {
+            Long cutoff = userCutoffs.get(username);
+            if (cutoff != null) {
+                return issuedAtMillis <= cutoff;
+            }
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+
+    private synchronized void expire() {
+        try {
+            expiries.advance(System.currentTimeMillis(), revocation -> {
+                Map<String, Long> map = revocation.kind == TOKEN ? revokedTokens : userCutoffs;
+                if (map.remove(revocation.key, revocation.value)) {
+                    expiredSinceRebuild++;
+                }
+            });
+            int live = revokedTokens.size() + userCutoffs.size();
+            if (expiredSinceRebuild > 0 && expiredSinceRebuild >= live / 4) {
+                rebuildFilter(live);
+            }
+        } catch (RuntimeException e) {
+            log.error("Expiring token revocations failed.", e);
+        }
+    }
+
+    //Callers hold the lock, so no revocation can be added while the filter is swapped
+    private void addToFilter(char kind, String key) {
+        BloomFilter filter = bloomFilter;
+        int live = revokedTokens.size() + userCutoffs.size();
+        if (live > filter.getCapacity()) {
+            rebuildFilter(live);
+        } else {
+            filter.add(kind, key);
+        }
+    }
+
+    private void rebuildFilter(int live) {
+        BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, live * 2));
+        revokedTokens.keySet().forEach(jti -> filter.add(TOKEN, jti));
+        userCutoffs.keySet().forEach(username -> filter.add(USER, username));
+        bloomFilter = filter;
+        expiredSinceRebuild = 0;
+    }
+
+    private static final class Revocation {
+        private final char kind;
+        private final String key;
+        private final long value;
+
+        private Revocation(char kind, String key, long value) {
+            this.kind = kind;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.itlize.korera.service;
+
+import com.itlize.korera.dto.BatchOperation;
+import com.itlize.korera.dto.BatchResult;
+
+import java.util.List;
+
+public interface BatchService {
+    BatchResult execute(List<BatchOperation> operations, Integer subBatchSize);
+}
@@ -1,5 +1,8 @@
 package com.itlize.korera.service;
 
+import com.itlize.korera.dto.BulkResult;
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.KeysetPage;
 import com.itlize.korera.model.Column;
 import com.itlize.korera.model.ColumnType;
 import com.itlize.korera.model.Project;
@@ -13,13 +16,15 @@ public interface ColumnService {
     boolean columnTypeExists(ColumnType type);
     boolean columnIdExists(Integer id);
     Column saveColumn(Column column);
+    BulkResult saveColumns(List<Column> columns);
     Column findById(Integer id);
     Column findByContent(String content);
-    List<Column> findColumnsByType(ColumnType type);
-    List<Column> getColumsByResource(String resourceName);
-    List<Column> getColumns();
-    Column updateContent(Column column, String content);
-    Column updateType(Column column, ColumnType type);
+    List<ColumnView> findColumnsByType(ColumnType type);
+    List<ColumnView> getColumsByResource(String resourceName);
+    List<ColumnView> getColumns();
+    KeysetPage<ColumnView> getColumns(String pageToken, Integer pageSize);
+    Column updateContent(String content, String newContent);
+    Column updateType(String content, ColumnType type);
     Column updateResource(String content, String resourceName);
     void deleteByContent(String content);
     void deleteByType(ColumnType type);
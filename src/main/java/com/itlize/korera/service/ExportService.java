@@ -0,0 +1,9 @@
+package com.itlize.korera.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    //Writes the project, resource and column sheet as csv or ndjson, of one project or of all when projectName is null
+    long exportProjects(String projectName, String format, OutputStream out) throws IOException;
+}
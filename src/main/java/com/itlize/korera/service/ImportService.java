@@ -0,0 +1,14 @@
+package com.itlize.korera.service;
+
+import com.itlize.korera.dto.ImportProgress;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface ImportService {
+    //Queues the import of a resource CSV as a job, throws RejectedExecutionException when the job queue is full
+    ImportProgress importResources(MultipartFile file) throws IOException;
+    ImportProgress getProgress(String id);
+    Path getErrorFile(String id);
+}
@@ -0,0 +1,10 @@
+package com.itlize.korera.service;
+
+//Handed to a running job to report progress and to notice cancellation
+public interface JobContext {
+    Integer getJobId();
+    void progress(long processed, long total);
+    boolean isCancelled();
+    //Throws CancellationException once the job is cancelled, tasks call it between units of work
+    void checkCancelled();
+}
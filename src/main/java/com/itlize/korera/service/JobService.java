@@ -0,0 +1,13 @@
+package com.itlize.korera.service;
+
+import com.itlize.korera.model.Job;
+
+import java.util.List;
+
+public interface JobService {
+    //Queues the task for the current user, throws RejectedExecutionException when the queue is full
+    Job submit(String type, JobTask task);
+    Job findById(Integer id);
+    List<Job> getJobs(String username);
+    Job cancel(Integer id);
+}
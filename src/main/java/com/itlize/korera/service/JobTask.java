@@ -0,0 +1,12 @@
+package com.itlize.korera.service;
+
+//The work of a job, returns a short description of its result
+@FunctionalInterface
+public interface JobTask {
+    String run(JobContext context) throws Exception;
+
+    //Called instead of run when the job ends without running (cancelled while queued, not startable or
+    //still queued at shutdown), to release what the task holds
+    default void discard(String reason) {
+    }
+}
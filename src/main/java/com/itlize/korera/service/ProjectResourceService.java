@@ -1,5 +1,6 @@
 package com.itlize.korera.service;
 
+import com.itlize.korera.dto.BulkResult;
 import com.itlize.korera.model.*;
 
 import java.util.List;
@@ -7,6 +8,7 @@ import java.util.List;
 public interface ProjectResourceService {
     boolean projectResourceIdExists(Integer id);
     ProjectResource saveProjectResource(ProjectResource projectResource);
+    BulkResult saveProjectResources(List<ProjectResource> projectResources);
     ProjectResource addResourceToProject(Project project, Resource resource);
     ProjectResource findById(Integer id);
     List<ProjectResource> findByProject(String projectName);
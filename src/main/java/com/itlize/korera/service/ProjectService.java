@@ -1,5 +1,7 @@
 package com.itlize.korera.service;
 
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.ProjectView;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.Resource;
 import com.itlize.korera.model.User;
@@ -11,12 +13,15 @@ public interface ProjectService {
     boolean projectNameExists(String name);
     boolean projectIdExists(Integer id);
     Project saveProject(Project project);
+    //Copies the project and its resource links under a new name, owned by username or by the source's owner when null
+    Project cloneProject(String sourceName, String targetName, String username);
     Project findByName(String name);
     Project findById(Integer id);
-    List<Project> getProjectsByUsername(String username);
-    List<Project> getProjects();
+    List<ProjectView> getProjectsByUsername(String username);
+    List<ProjectView> getProjects();
+    KeysetPage<ProjectView> getProjects(String pageToken, Integer pageSize);
     Project updateUser(String name, String username);
-    Project updateName(Project project, String name);
+    Project updateName(String name, String newName);
     void deleteByProjectName(String name);
     void deleteByProjectId(Integer projectId);
     void deleteProjects();
@@ -1,8 +1,16 @@
 package com.itlize.korera.service;
 
+import com.itlize.korera.dto.AssignmentResult;
+import com.itlize.korera.dto.BulkResult;
+import com.itlize.korera.dto.ResourceAssignment;
+import com.itlize.korera.dto.UpsertResult;
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.ProjectResourceRow;
+import com.itlize.korera.dto.ResourceView;
 import com.itlize.korera.model.ProjectResource;
 import com.itlize.korera.model.Resource;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ResourceService {
@@ -10,15 +18,20 @@ public interface ResourceService {
     boolean resourceCodeExists(String code);
     boolean resourceIdExists(Integer id);
     Resource saveResource(Resource resource);
+    BulkResult saveResources(List<Resource> resources);
+    //Inserts resources with a new code and renames the ones whose code exists, in one transaction
+    UpsertResult upsertByCode(Collection<Resource> resources);
     ProjectResource addResourceToProject(String resourceName, String projectName);
+    AssignmentResult addResourcesToProject(String projectName, ResourceAssignment assignment);
     Resource findByName(String name);
     Resource findByCode(String code);
     Resource findById(Integer id);
-    List<ProjectResource> getResourcesByProject(String projectName);
-    List<ProjectResource> getProjectsByResource(String resourceName);
-    List<Resource> getResources();
-    Resource updateName(Resource resource, String name);
-    Resource updateCode(Resource resource, String code);
+    List<ProjectResourceRow> getResourcesByProject(String projectName);
+    List<ProjectResourceRow> getProjectsByResource(String resourceName);
+    List<ResourceView> getResources();
+    KeysetPage<ResourceView> getResources(String pageToken, Integer pageSize, String sort);
+    Resource updateName(String name, String newName);
+    Resource updateCode(String code, String newCode);
     ProjectResource updateProject(Integer projectResourceId, String projectName);
     ProjectResource updateResource(Integer projectResourceId, String projectName);
     ProjectResource removeProject(Integer projectResourceId, String projectName);
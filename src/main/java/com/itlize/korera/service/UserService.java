@@ -1,5 +1,7 @@
 package com.itlize.korera.service;
 
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.UserView;
 import com.itlize.korera.model.Role;
 import com.itlize.korera.model.User;
 
@@ -12,14 +14,15 @@ public interface UserService {
     User saveUser(User user);
     User findByUsername(String username);
     User findByUserId(Integer userId);
-    List<User> getUsers();
-    User updateUsername(User user, String username);
-    User updatePassword(User user, String password);
-    User updateEmail(User user, String email);
-    User updateFirstName(User user, String firstName);
-    User updateLastName(User user, String lastName);
-    User updatePhone(User user, Integer phone);
-    User updateRole(User user, Role role);
+    List<UserView> getUsers();
+    KeysetPage<UserView> getUsers(String pageToken, Integer pageSize);
+    User updateUsername(String username, String newUsername);
+    User updatePassword(String username, String password);
+    User updateEmail(String username, String email);
+    User updateFirstName(String username, String firstName);
+    User updateLastName(String username, String lastName);
+    User updatePhone(String username, Integer phone);
+    User updateRole(String username, Role role);
     void deleteByUsername(String username);
     void deleteByUserId(Integer userId);
     void deleteUsers();
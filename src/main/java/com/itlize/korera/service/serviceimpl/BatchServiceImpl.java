@@ -0,0 +1,311 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itlize.korera.dto.BatchOperation;
+import com.itlize.korera.dto.BatchOperationResult;
+import com.itlize.korera.dto.BatchResult;
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.ProjectResourceView;
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.model.Column;
+import com.itlize.korera.model.ColumnType;
+import com.itlize.korera.model.Project;
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.model.User;
+import com.itlize.korera.service.BatchService;
+import com.itlize.korera.service.ColumnService;
+import com.itlize.korera.service.ProjectService;
+import com.itlize.korera.service.ResourceService;
+import com.itlize.korera.service.UserService;
+import com.itlize.korera.util.Chunks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Runs the operations of a batch in order through the regular services, all in one transaction
+ * or in transactions of sub-batch-size operations. Inserts of consecutive creates are sent as
+ * JDBC batches, and the persistence context is flushed and cleared every flush-size operations.
+ * The first failing operation rolls back its transaction and stops the batch, the operations of
+ * earlier transactions stay committed. A duplicate key only shows when the batched statements are
+ * flushed, so a transaction failing in the database is run again with a flush after every operation
+ * to find the operation at fault.
+ */
+@Service
+@Slf4j // logs
+public class BatchServiceImpl implements BatchService {
+
+    private interface Handler {
+        Object apply(BatchOperation operation) throws Exception;
+    }
+
+    private static class Registration {
+        final int status;
+        final Handler handler;
+
+        Registration(int status, Handler handler) {
+            this.status = status;
+            this.handler = handler;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final UserService userService;
+    private final ProjectService projectService;
+    private final ResourceService resourceService;
+    private final ColumnService columnService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxOperations;
+    private final int defaultSubBatchSize;
+    private final int flushSize;
+    private final Map<String, Registration> operations = new HashMap<>();
+
+    public BatchServiceImpl(UserService userService, ProjectService projectService, ResourceService resourceService,
+                            ColumnService columnService, ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${korera.batch.max-operations:10000}") int maxOperations,
+                            @Value("${korera.batch.sub-batch-size:0}") int defaultSubBatchSize,
+                            @Value("${korera.bulk.flush-size:50}") int flushSize) {
+        this.userService = userService;
+        this.projectService = projectService;
+        this.resourceService = resourceService;
+        this.columnService = columnService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxOperations = maxOperations;
+        this.defaultSubBatchSize = defaultSubBatchSize;
+        this.flushSize = flushSize;
+        register();
+    }
+
+    private void register() {
+        operations.put("resource/create", new Registration(201, operation -> {
+            Resource resource = body(operation, Resource.class);
+            resourceService.saveResource(resource);
+            return ResourceView.of(resource);
+        }));
+        operations.put("column/create", new Registration(201, operation -> {
+            Column column = body(operation, Column.class);
+            columnService.saveColumn(column);
+            return ColumnView.of(column);
+        }));
+        operations.put("project/create", new Registration(201, operation -> {
+            Project project = body(operation, Project.class);
+            User user = userService.findByUsername(param(operation, "username"));
+            project.setUser(user);
+            projectService.saveProject(project);
+            return ProjectView.of(project);
+        }));
+        operations.put("resource/add/project", new Registration(200, operation -> ProjectResourceView.of(
+                resourceService.addResourceToProject(param(operation, "resourcename"), param(operation, "projectname")))));
+        operations.put("resource/update/name", new Registration(200, operation -> ResourceView.of(resourceService
+                .updateName(param(operation, "name"), param(operation, "newname")))));
+        operations.put("resource/update/code", new Registration(200, operation -> ResourceView.of(resourceService
+                .updateCode(param(operation, "code"), param(operation, "newcode")))));
+        operations.put("column/update/content", new Registration(200, operation -> ColumnView.of(columnService
+                .updateContent(param(operation, "content"), param(operation, "newcontent")))));
+        operations.put("column/update/type", new Registration(200, operation -> ColumnView.of(columnService
+                .updateType(param(operation, "content"), ColumnType.valueOf(param(operation, "newtype"))))));
+        operations.put("column/update/resource", new Registration(200, operation -> ColumnView.of(
+                columnService.updateResource(param(operation, "content"), param(operation, "resourcename")))));
+    }
+
+    @Override
+    public BatchResult execute(List<BatchOperation> batch, Integer subBatchSize) {
+        if (batch.size() > maxOperations) {
+            throw new IllegalArgumentException("A batch takes at most " + maxOperations + " operations, not "
+                    + batch.size() + ".");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (!operations.containsKey(batch.get(i).getOperation())) {
+                throw new IllegalArgumentException("Operation " + i + " \"" + batch.get(i).getOperation()
+                        + "\" is not supported, use one of " + operations.keySet() + ".");
+            }
+        }
+        int size = subBatchSize != null ? subBatchSize : defaultSubBatchSize;
+        if (size <= 0) {
+            size = Math.max(batch.size(), 1);
+        }
+        log.info("Executing batch of " + batch.size() + " operations in transactions of " + size + "...");
+        long start = System.nanoTime();
+
+        BatchOperationResult[] results = new BatchOperationResult[batch.size()];
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            indexes.add(i);
+        }
+        int succeeded = 0;
+        int transactions = 0;
+        String failed = null;
+        for (List<Integer> chunk : Chunks.of(indexes, size)) {
+            if (failed != null) {
+                for (int i : chunk) {
+                    results[i] = new BatchOperationResult(i, batch.get(i).getOperation(), 424, null,
+                            "Skipped, " + failed + ".");
+                }
+                continue;
+            }
+            transactions++;
+            failed = executeChunk(batch, chunk, results);
+            if (failed == null) {
+                succeeded += chunk.size();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Batch of " + batch.size() + " operations: " + succeeded + " succeeded in " + elapsedMillis + " ms.");
+        return new BatchResult(Arrays.asList(results), succeeded, transactions, elapsedMillis);
+    }
+
+    //Returns null when the chunk was committed, else which operations failed
+    private String executeChunk(List<BatchOperation> batch, List<Integer> chunk, BatchOperationResult[] results) {
+        Attempt attempt = attempt(batch, chunk, results, false);
+        if (attempt.inDatabase) {
+            log.info("Sub-batch of operations " + chunk.get(0) + " to " + chunk.get(chunk.size() - 1)
+                    + " failed in the database, running it again one flush per operation...");
+            attempt = attempt(batch, chunk, results, true);
+        }
+        if (attempt.failed != null) {
+            for (int i : chunk) {
+                if (i != attempt.failed) {
+                    results[i] = new BatchOperationResult(i, batch.get(i).getOperation(), 424, null, i < attempt.failed
+                            ? "Rolled back, operation " + attempt.failed + " failed."
+                            : "Skipped, operation " + attempt.failed + " failed.");
+                }
+            }
+            return "operation " + attempt.failed + " failed";
+        } else if (attempt.inDatabase) {
+            //Failed at commit even with every operation flushed, no single operation is to blame
+            String failed = "operations " + chunk.get(0) + " to " + chunk.get(chunk.size() - 1) + " failed to commit";
+            for (int i : chunk) {
+                results[i] = new BatchOperationResult(i, batch.get(i).getOperation(), attempt.status, null,
+                        "Rolled back, " + failed + ".");
+            }
+            return failed;
+        }
+        return null;
+    }
+
+    //Runs the chunk in one transaction. A failure of the database found at a batched flush or at commit
+    //is not pinned on an operation, unless every operation was flushed on its own
+    private Attempt attempt(List<BatchOperation> batch, List<Integer> chunk, BatchOperationResult[] results,
+                            boolean flushEach) {
+        Attempt attempt = new Attempt();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int n = 0; n < chunk.size(); n++) {
+                    int i = chunk.get(n);
+                    BatchOperation operation = batch.get(i);
+                    Registration registration = operations.get(operation.getOperation());
+                    try {
+                        Object body = registration.handler.apply(operation);
+                        if (flushEach || (n + 1) % flushSize == 0) {
+                            entityManager.flush();
+                        }
+                        if ((n + 1) % flushSize == 0) {
+                            entityManager.clear();
+                        }
+                        results[i] = new BatchOperationResult(i, operation.getOperation(), registration.status, body,
+                                null);
+                    } catch (Exception e) {
+                        if (!flushEach && inDatabase(e)) {
+                            attempt.inDatabase = true;
+                        } else {
+                            results[i] = new BatchOperationResult(i, operation.getOperation(), statusOf(e), null,
+                                    errorOf(i, e));
+                            attempt.failed = i;
+                        }
+                        status.setRollbackOnly();
+                        return;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            //Failed at commit, when the last inserts and updates were flushed
+            if (flushEach) {
+                log.warn("Sub-batch of operations " + chunk.get(0) + " to " + chunk.get(chunk.size() - 1)
+                        + " failed to commit.", e);
+            }
+            attempt.inDatabase = true;
+            attempt.status = statusOf(e);
+        }
+        return attempt;
+    }
+
+    private static class Attempt {
+        Integer failed;
+        boolean inDatabase;
+        int status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    private <T> T body(BatchOperation operation, Class<T> type) throws JsonProcessingException {
+        if (operation.getBody() == null) {
+            throw new IllegalArgumentException("Operation \"" + operation.getOperation() + "\" needs a body.");
+        }
+        return objectMapper.treeToValue(operation.getBody(), type);
+    }
+
+    private static String param(BatchOperation operation, String name) {
+        String value = operation.getParams() == null ? null : operation.getParams().get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Operation \"" + operation.getOperation() + "\" needs the param \""
+                    + name + "\".");
+        }
+        return value;
+    }
+
+    private static boolean inDatabase(Exception e) {
+        return e instanceof PersistenceException || e instanceof DataAccessException;
+    }
+
+    //Messages of the services are meant for the client, those of the database name its tables and constraints
+    private static String errorOf(int index, Exception e) {
+        int status = statusOf(e);
+        if (e instanceof ResponseStatusException) {
+            return ((ResponseStatusException) e).getReason();
+        } else if (status == HttpStatus.CONFLICT.value()) {
+            log.info("Batch operation " + index + " conflicts with stored data.", e);
+            return "Conflicts with stored data, e.g. a name or code that is already taken.";
+        } else if (status == HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            log.warn("Batch operation " + index + " failed.", e);
+            return "Failed, see the server log.";
+        }
+        return e.getMessage();
+    }
+
+    //The status the single endpoint would answer with
+    private static int statusOf(Exception e) {
+        if (e instanceof ResponseStatusException) {
+            return ((ResponseStatusException) e).getRawStatusCode();
+        } else if (e instanceof NullPointerException || e instanceof UsernameNotFoundException
+                || e instanceof NoSuchElementException) {
+            return HttpStatus.NOT_FOUND.value();
+        } else if (e instanceof DataIntegrityViolationException || e instanceof PersistenceException) {
+            return HttpStatus.CONFLICT.value();
+        } else if (e instanceof IllegalArgumentException || e instanceof JsonProcessingException) {
+            return HttpStatus.BAD_REQUEST.value();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+}
@@ -0,0 +1,112 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.repository.ColumnRepository;
+import com.itlize.korera.repository.ProjectRepository;
+import com.itlize.korera.repository.ProjectResourceRepository;
+import com.itlize.korera.repository.ResourceRepository;
+import com.itlize.korera.repository.TableVersions;
+import com.itlize.korera.repository.UserRepository;
+import com.itlize.korera.util.Chunks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Set-based deletes that replace loading and removing entities one by one through CascadeType.ALL.
+ * The cascades are walked explicitly, children first: project links before projects before users,
+ * columns and project links before resources. Id lists are deleted in chunks of delete-chunk-size
+ * to keep every IN list bounded, and every statement clears the persistence context.
+ * Bulk deletes bypass entity listeners, so the versions of the tables are dropped here.
+ * Runs in the caller's transaction.
+ */
+@Component
+@Slf4j // logs
+public class BulkDeleter {
+
+    private final UserRepository userRepository;
+    private final ProjectRepository projectRepository;
+    private final ResourceRepository resourceRepository;
+    private final ColumnRepository columnRepository;
+    private final ProjectResourceRepository projectResourceRepository;
+    private final TableVersions tableVersions;
+    private final int chunkSize;
+
+    public BulkDeleter(UserRepository userRepository, ProjectRepository projectRepository,
+                       ResourceRepository resourceRepository, ColumnRepository columnRepository,
+                       ProjectResourceRepository projectResourceRepository, TableVersions tableVersions,
+                       @Value("${korera.bulk.delete-chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.projectRepository = projectRepository;
+        this.resourceRepository = resourceRepository;
+        this.columnRepository = columnRepository;
+        this.projectResourceRepository = projectResourceRepository;
+        this.tableVersions = tableVersions;
+        this.chunkSize = chunkSize;
+    }
+
+    public int deleteUsers(List<Integer> userIds) {
+        int deleted = 0;
+        for (List<Integer> chunk : Chunks.of(userIds, chunkSize)) {
+            deleteProjects(projectRepository.findIdsByUserIds(chunk));
+            deleted += userRepository.deleteAllByUserIds(chunk);
+        }
+        tableVersions.invalidateAfterCommit(TableVersions.USER, TableVersions.PROJECT, TableVersions.PROJECT_RESOURCE);
+        log.info("Bulk deleted " + deleted + " users.");
+        return deleted;
+    }
+
+    //Projects without a user are not reached by the user cascade and are kept
+    public int deleteAllUsers() {
+        int links = projectResourceRepository.deleteAllWithUserProject();
+        int projects = projectRepository.deleteAllWithUser();
+        int deleted = userRepository.deleteAllInBulk();
+        tableVersions.invalidateAfterCommit(TableVersions.USER, TableVersions.PROJECT, TableVersions.PROJECT_RESOURCE);
+        log.info("Bulk deleted " + deleted + " users, " + projects + " projects and " + links + " project links.");
+        return deleted;
+    }
+
+    public int deleteProjects(List<Integer> projectIds) {
+        int links = 0;
+        int deleted = 0;
+        for (List<Integer> chunk : Chunks.of(projectIds, chunkSize)) {
+            links += projectResourceRepository.deleteAllByProjectIds(chunk);
+            deleted += projectRepository.deleteAllByProjectIds(chunk);
+        }
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT, TableVersions.PROJECT_RESOURCE);
+        log.info("Bulk deleted " + deleted + " projects and " + links + " project links.");
+        return deleted;
+    }
+
+    public int deleteAllProjects() {
+        int links = projectResourceRepository.deleteAllWithProject();
+        int deleted = projectRepository.deleteAllInBulk();
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT, TableVersions.PROJECT_RESOURCE);
+        log.info("Bulk deleted " + deleted + " projects and " + links + " project links.");
+        return deleted;
+    }
+
+    public int deleteResources(List<Integer> resourceIds) {
+        int columns = 0;
+        int links = 0;
+        int deleted = 0;
+        for (List<Integer> chunk : Chunks.of(resourceIds, chunkSize)) {
+            columns += columnRepository.deleteAllByResourceIds(chunk);
+            links += projectResourceRepository.deleteAllByResourceIds(chunk);
+            deleted += resourceRepository.deleteAllByResourceIds(chunk);
+        }
+        tableVersions.invalidateAfterCommit(TableVersions.RESOURCE, TableVersions.COLUMNS, TableVersions.PROJECT_RESOURCE);
+        log.info("Bulk deleted " + deleted + " resources, " + columns + " columns and " + links + " project links.");
+        return deleted;
+    }
+
+    public int deleteAllResources() {
+        int columns = columnRepository.deleteAllWithResource();
+        int links = projectResourceRepository.deleteAllWithResource();
+        int deleted = resourceRepository.deleteAllInBulk();
+        tableVersions.invalidateAfterCommit(TableVersions.RESOURCE, TableVersions.COLUMNS, TableVersions.PROJECT_RESOURCE);
+        log.info("Bulk deleted " + deleted + " resources, " + columns + " columns and " + links + " project links.");
+        return deleted;
+    }
+}
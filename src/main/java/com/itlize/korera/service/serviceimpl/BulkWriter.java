@@ -0,0 +1,93 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.dto.BulkResult;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Persists large lists of new entities through Hibernate JDBC batching.
+ * Every chunk is committed in its own transaction, and the persistence context is flushed and
+ * cleared every flush-size rows so it never holds more than one JDBC batch worth of entities.
+ * A failing chunk stops the write, the result tells which rows were committed and which failed.
+ */
+@Component
+@Slf4j // logs
+public class BulkWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int flushSize;
+    private final int chunkSize;
+
+    public BulkWriter(PlatformTransactionManager transactionManager,
+                      @Value("${korera.bulk.flush-size:50}") int flushSize,
+                      @Value("${korera.bulk.chunk-size:1000}") int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushSize = flushSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public <T> BulkResult persistAll(String label, List<T> entities) {
+        log.info("Bulk saving " + entities.size() + " " + label + " in chunks of " + chunkSize + "...");
+        long start = System.nanoTime();
+        int chunks = 0;
+        for (int from = 0; from < entities.size(); from += chunkSize) {
+            List<T> chunk = entities.subList(from, Math.min(from + chunkSize, entities.size()));
+            long chunkStart = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> persistChunk(chunk));
+            } catch (RuntimeException e) {
+                log.error("Bulk save of " + label + " failed in chunk " + (chunks + 1) + ", "
+                        + from + " rows were already committed.", e);
+                return new BulkResult(from, chunks, elapsedMillis(start), from, from + chunk.size(),
+                        errorOf(from, from + chunk.size(), e));
+            }
+            chunks++;
+            BulkResult chunkResult = new BulkResult(chunk.size(), 1, elapsedMillis(chunkStart));
+            log.info("Chunk " + chunks + " of " + label + ": " + chunkResult.getRows() + " rows in "
+                    + chunkResult.getElapsedMillis() + " ms (" + chunkResult.getRowsPerSecond() + " rows/s).");
+        }
+        BulkResult result = new BulkResult(entities.size(), chunks, elapsedMillis(start));
+        log.info("Bulk save of " + label + " done: " + result);
+        return result;
+    }
+
+    private <T> void persistChunk(List<T> chunk) {
+        for (int i = 0; i < chunk.size(); i++) {
+            entityManager.persist(chunk.get(i));
+            if ((i + 1) % flushSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    //The database's message names tables, keys and values, it is only logged
+    private static String errorOf(int from, int to, RuntimeException e) {
+        String rows = "Rows " + from + " to " + (to - 1) + " were not saved";
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return rows + ", one of them conflicts with stored data or another row,"
+                        + " e.g. a name or code that is already taken.";
+            }
+        }
+        return rows + ", see the server log.";
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
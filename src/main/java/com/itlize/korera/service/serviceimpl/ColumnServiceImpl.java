@@ -1,18 +1,25 @@
 package com.itlize.korera.service.serviceimpl;
 
+import com.itlize.korera.dto.BulkResult;
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.KeysetPage;
 import com.itlize.korera.model.Column;
 import com.itlize.korera.model.ColumnType;
 import com.itlize.korera.model.Resource;
 import com.itlize.korera.repository.ColumnRepository;
 import com.itlize.korera.repository.ResourceRepository;
+import com.itlize.korera.repository.TableVersions;
 import com.itlize.korera.repository.UserRepository;
 import com.itlize.korera.service.ColumnService;
+import com.itlize.korera.util.PageToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,19 +33,28 @@ public class ColumnServiceImpl implements ColumnService {
     private final ColumnRepository columnRepository;
     @Autowired
     private final ResourceRepository resourceRepository;
+    @Autowired
+    private final BulkWriter bulkWriter;
+    //Bulk deletes bypass the entity listeners
+    @Autowired
+    private final TableVersions tableVersions;
+
     @Override
+    @Transactional(readOnly = true)
     public boolean columnContentExists(String content) {
-        return columnRepository.existsByContent(content);
+        return columnRepository.findByContent(content).isPresent();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean columnTypeExists(ColumnType type) {
         return columnRepository.existsByColumnType(type);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean columnIdExists(Integer id) {
-        return columnRepository.existsById(id);
+        return columnRepository.findById(id).isPresent();
     }
 
     @Override
@@ -51,6 +67,18 @@ public class ColumnServiceImpl implements ColumnService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkResult saveColumns(List<Column> columns) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Column column : columns) {
+            column.setTimeCreated(now);
+            column.setTimeUpdated(now);
+        }
+        return bulkWriter.persistAll("columns", columns);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Column findByContent(String content) {
         log.info("Fetching column with content: " + content + "...");
         Column column =  columnRepository.findByContent(content).orElse(null);
@@ -63,6 +91,7 @@ public class ColumnServiceImpl implements ColumnService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Column findById(Integer id) {
         log.info("Fetching column with id: " + id + "...");
         Column column =  columnRepository.findById(id).orElse(null);
@@ -75,7 +104,8 @@ public class ColumnServiceImpl implements ColumnService {
     }
 
     @Override
-    public List<Column> findColumnsByType(ColumnType type) {
+    @Transactional(readOnly = true)
+    public List<ColumnView> findColumnsByType(ColumnType type) {
         log.info("Fetching list of columns with type: " + type.name() + "...");
         if(!columnRepository.existsByColumnType(type)){
             throw new NullPointerException("Column type : " + type.name()
@@ -83,38 +113,62 @@ public class ColumnServiceImpl implements ColumnService {
         }
         List<Column> list = columnRepository.findAllByColumnType(type);
         log.info("List of columns with type " + type + ": " + list);
-        return columnRepository.findAllByColumnType(type);
+        return ColumnView.listOf(list);
     }
 
 
     @Override
-    public List<Column> getColumsByResource(String resourceName) {
-        return columnRepository.findAllByResource_ResourceName(resourceName);
+    @Transactional(readOnly = true)
+    public List<ColumnView> getColumsByResource(String resourceName) {
+        return ColumnView.listOf(columnRepository.findAllByResource_ResourceName(resourceName));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ColumnView> getColumns() {
+        return ColumnView.listOf(columnRepository.findAll());
     }
 
     @Override
-    public List<Column> getColumns() {
-        return columnRepository.findAll();
+    @Transactional(readOnly = true)
+    public KeysetPage<ColumnView> getColumns(String pageToken, Integer pageSize) {
+        PageToken token = PageToken.decode(pageToken, "id");
+        int size = PageToken.boundedSize(pageSize);
+        log.info("Fetching page of " + size + " columns...");
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Column> rows = token == null
+                ? columnRepository.findAllByOrderByColumnIdAsc(limit)
+                : columnRepository.findByColumnIdGreaterThanOrderByColumnIdAsc(token.getKeyAsInteger(), limit);
+        return KeysetPage.of(rows, size, column -> PageToken.of("id", column.getColumnId()).encode())
+                .map(ColumnView::of);
     }
 
     @Override
-    public Column updateContent(Column column, String content) {
-        log.info("Updating content " + column.getContent() + " to " + content);
-        column.setContent(content);
+    public Column updateContent(String content, String newContent) {
+        Column column = load(content);
+        log.info("Updating content " + content + " to " + newContent);
+        column.setContent(newContent);
         column.setTimeUpdated(LocalDateTime.now());
-        log.info("Column content " + column.getContent() + " has been updated to " + content);
+        log.info("Column content " + content + " has been updated to " + newContent);
         log.info("Column: " + column);
-        return column;
+        return columnRepository.save(column);
     }
 
     @Override
-    public Column updateType(Column column, ColumnType type) {
+    public Column updateType(String content, ColumnType type) {
+        Column column = load(content);
         log.info("Updating column's type " + column.getColumnType() + " to " + type);
         column.setColumnType(type);
         column.setTimeUpdated(LocalDateTime.now());
         log.info("Column's type " + column.getColumnType() + " has been updated to " + type);
         log.info("Column: " + column);
-        return column;
+        return columnRepository.save(column);
+    }
+
+    //Updates load the column in their own write transaction, not from a snapshot read earlier on a replica
+    private Column load(String content) {
+        return columnRepository.findByContent(content).orElseThrow(() ->
+                new NullPointerException("Column content: " + content + " was not found in the database."));
     }
 
     @Override
@@ -138,6 +192,7 @@ public class ColumnServiceImpl implements ColumnService {
                     resourceName + " was not found in the database.");
         }else{
             column.setResource(resource);
+            column.setTimeUpdated(LocalDateTime.now());
             log.info("Column's info after update operation: " + column);
         }
 
@@ -147,11 +202,13 @@ public class ColumnServiceImpl implements ColumnService {
     @Override
     public void deleteByContent(String content) {
         columnRepository.deleteByContent(content);
+        tableVersions.invalidateAfterCommit(TableVersions.COLUMNS);
     }
 
     @Override
     public void deleteByType(ColumnType type) {
         columnRepository.deleteByColumnType(type);
+        tableVersions.invalidateAfterCommit(TableVersions.COLUMNS);
     }
 
     @Override
@@ -161,6 +218,7 @@ public class ColumnServiceImpl implements ColumnService {
 
     @Override
     public void deleteColumns() {
-        columnRepository.deleteAll();
+        columnRepository.deleteAllInBulk();
+        tableVersions.invalidateAfterCommit(TableVersions.COLUMNS);
     }
 }
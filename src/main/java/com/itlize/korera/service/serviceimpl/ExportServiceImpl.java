@@ -0,0 +1,123 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itlize.korera.repository.ProjectExportRepository;
+import com.itlize.korera.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes export rows to the response as the cursor reads them, nothing but the current row is kept.
+ * The read-only transaction sends the export to a replica when one is healthy and holds its
+ * connection until the last row is written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j // logs
+public class ExportServiceImpl implements ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private final ProjectExportRepository projectExportRepository;
+    @Autowired
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProjects(String projectName, String format, OutputStream out) throws IOException {
+        log.info("Exporting " + (projectName == null ? "all projects" : "project " + projectName) + " as " + format + "...");
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            if ("csv".equals(format)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+                writer.write(String.join(",", ProjectExportRepository.COLUMNS));
+                writer.write("\r\n");
+                projectExportRepository.forEachRow(projectName, resultSet -> {
+                    writeCsv(resultSet, writer);
+                    rows[0]++;
+                });
+                writer.flush();
+            } else if ("ndjson".equals(format)) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.setRootValueSeparator(null);
+                projectExportRepository.forEachRow(projectName, resultSet -> {
+                    writeJson(resultSet, generator);
+                    rows[0]++;
+                });
+                generator.flush();
+            } else {
+                throw new IllegalArgumentException("Projects cannot be exported as \"" + format + "\", use csv or ndjson.");
+            }
+        } catch (UncheckedIOException e) {
+            //Usually the client went away, the cursor is closed with the transaction
+            log.info("Export stopped after " + rows[0] + " rows: " + e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exported " + rows[0] + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return rows[0];
+    }
+
+    private static void writeCsv(ResultSet resultSet, Writer writer) throws SQLException {
+        try {
+            for (int i = 1; i <= ProjectExportRepository.COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                String value = resultSet.getString(i);
+                if (value != null) {
+                    writer.write(csvField(value));
+                }
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeJson(ResultSet resultSet, JsonGenerator generator) throws SQLException {
+        try {
+            generator.writeStartObject();
+            for (int i = 1; i <= ProjectExportRepository.COLUMNS.length; i++) {
+                String name = ProjectExportRepository.COLUMNS[i - 1];
+                if (name.endsWith("_id")) {
+                    int value = resultSet.getInt(i);
+                    if (resultSet.wasNull()) {
+                        generator.writeNullField(name);
+                    } else {
+                        generator.writeNumberField(name, value);
+                    }
+                } else {
+                    generator.writeStringField(name, resultSet.getString(i));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //RFC 4180: fields with a comma, quote or line break are quoted, quotes are doubled
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,496 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.dto.ImportProgress;
+import com.itlize.korera.model.Column;
+import com.itlize.korera.model.ColumnType;
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.repository.ColumnRepository;
+import com.itlize.korera.repository.ResourceRepository;
+import com.itlize.korera.model.Job;
+import com.itlize.korera.service.ImportService;
+import com.itlize.korera.service.JobContext;
+import com.itlize.korera.service.JobService;
+import com.itlize.korera.service.JobTask;
+import com.itlize.korera.util.CsvReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports resources and their column definitions from CSV with the header
+ * resource_name,resource_code[,content,column_type], one row per column. The upload is read one
+ * chunk of korera.bulk.chunk-size rows at a time: rows are validated in parallel, checked against
+ * the rest of the file, then upserted in one transaction per chunk (by resource_name and by
+ * content) through Hibernate JDBC batching. Rejected rows go to an error file with their line.
+ * Memory holds one chunk plus the names, codes and contents seen so far, at most max-rows of them.
+ * Imports run as jobs of the uploading user and can be cancelled between chunks. Uploads and error
+ * files live in korera.import.directory, one per node: an import that never runs (cancelled while
+ * queued, or queued at shutdown) deletes its upload, and files a previous run left are deleted at startup.
+ */
+@Service
+@Slf4j // logs
+public class ImportServiceImpl implements ImportService {
+
+    private static final List<String> HEADER = Arrays.asList("resource_name", "resource_code", "content", "column_type");
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ResourceRepository resourceRepository;
+    private final ColumnRepository columnRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JobService jobService;
+    private final int chunkSize;
+    private final long maxRows;
+    private final Duration retention;
+    private final Path directory;
+    private final Map<String, ImportProgress> imports = new ConcurrentHashMap<>();
+
+    public ImportServiceImpl(ResourceRepository resourceRepository, ColumnRepository columnRepository,
+                             PlatformTransactionManager transactionManager, JobService jobService,
+                             @Value("${korera.bulk.chunk-size:1000}") int chunkSize,
+                             @Value("${korera.import.max-rows:1000000}") long maxRows,
+                             @Value("${korera.import.retention:1h}") Duration retention,
+                             @Value("${korera.import.directory:}") String directory) throws IOException {
+        this.resourceRepository = resourceRepository;
+        this.columnRepository = columnRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        this.retention = retention;
+        this.jobService = jobService;
+        this.directory = directory.isEmpty()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "korera-imports") : Paths.get(directory);
+        deleteLeftovers();
+    }
+
+    //Nothing refers to the files of a previous run anymore, its imports were lost with its memory
+    private void deleteLeftovers() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "korera-import-*")) {
+            for (Path file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    @Override
+    public ImportProgress importResources(MultipartFile file) throws IOException {
+        removeExpired();
+        String id = UUID.randomUUID().toString();
+        //The multipart file is gone once the request ends
+        Path upload = Files.createTempFile(directory, "korera-import-" + id, ".csv");
+        file.transferTo(upload);
+        Path errorFile = Files.createTempFile(directory, "korera-import-" + id + "-errors", ".csv");
+        ImportProgress progress = new ImportProgress(id, file.getOriginalFilename(), Files.size(upload), errorFile);
+        imports.put(id, progress);
+        try {
+            Job job = jobService.submit("resource-import", new JobTask() {
+                @Override
+                public String run(JobContext context) throws IOException {
+                    return ImportServiceImpl.this.run(progress, upload, context);
+                }
+
+                @Override
+                public void discard(String reason) {
+                    progress.setError(reason);
+                    progress.setStatus("CANCELLED");
+                    delete(upload);
+                }
+            });
+            progress.setJobId(job.getJobId());
+        } catch (RuntimeException e) {
+            imports.remove(id);
+            Files.deleteIfExists(upload);
+            Files.deleteIfExists(errorFile);
+            throw e;
+        }
+        log.info("Queued import " + id + " of " + file.getOriginalFilename() + " (" + progress.getBytesTotal() + " bytes).");
+        return progress;
+    }
+
+    @Override
+    public ImportProgress getProgress(String id) {
+        ImportProgress progress = imports.get(id);
+        if (progress == null) {
+            throw new NullPointerException("Import " + id + " was not found.");
+        }
+        return progress;
+    }
+
+    @Override
+    public Path getErrorFile(String id) {
+        return getProgress(id).getErrorFile();
+    }
+
+    private String run(ImportProgress progress, Path upload, JobContext context) throws IOException {
+        progress.setStatus("RUNNING");
+        long start = System.nanoTime();
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(upload));
+             Writer errors = Files.newBufferedWriter(progress.getErrorFile(), StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)),
+                    MAX_FIELD_LENGTH);
+            List<String> header = csv.next();
+            int[] columns = header(header);
+            //Rejected rows keep the file's own columns, after their line and error
+            errors.write("line,error");
+            for (String field : header) {
+                errors.write("," + quote(field));
+            }
+            errors.write("\r\n");
+            SeenKeys seen = new SeenKeys();
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            List<String> fields;
+            do {
+                long line = csv.getLine();
+                fields = csv.next();
+                if (fields != null && !(fields.size() == 1 && fields.get(0).isEmpty())) {
+                    chunk.add(new ImportRow(line, fields));
+                }
+                if (chunk.size() == chunkSize || (fields == null && !chunk.isEmpty())) {
+                    if (progress.getRowsRead() + chunk.size() > maxRows) {
+                        throw new IllegalArgumentException("The file has more than " + maxRows + " rows.");
+                    }
+                    importChunk(chunk, columns, seen, progress, errors);
+                    chunk = new ArrayList<>(chunkSize);
+                    progress.setBytesRead(in.getCount());
+                    progress.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+                    context.progress(progress.getBytesRead(), progress.getBytesTotal());
+                    context.checkCancelled();
+                }
+            } while (fields != null);
+            progress.setBytesRead(progress.getBytesTotal());
+            progress.setStatus("DONE");
+        } catch (CancellationException e) {
+            progress.setError(e.getMessage());
+            progress.setStatus("CANCELLED");
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            log.error("Import " + progress.getId() + " failed after " + progress.getRowsRead() + " rows: " + e.getMessage());
+            progress.setError(e.getMessage());
+            progress.setStatus("FAILED");
+            throw e;
+        } finally {
+            progress.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            delete(upload);
+        }
+        String result = progress.getRowsImported() + " rows imported, " + progress.getRowsFailed() + " rejected.";
+        log.info("Import " + progress.getId() + " done: " + result);
+        return result;
+    }
+
+    //Position of each HEADER column in the file, -1 when it is absent
+    private static int[] header(List<String> fields) {
+        if (fields == null) {
+            throw new IllegalArgumentException("The file is empty.");
+        }
+        for (String field : fields) {
+            if (!HEADER.contains(field.trim())) {
+                throw new IllegalArgumentException("Unknown column \"" + field + "\", the header takes " + HEADER + ".");
+            }
+        }
+        int[] columns = new int[HEADER.size()];
+        for (int i = 0; i < HEADER.size(); i++) {
+            columns[i] = fields.stream().map(String::trim).collect(Collectors.toList()).indexOf(HEADER.get(i));
+        }
+        if (columns[0] < 0 || columns[1] < 0) {
+            throw new IllegalArgumentException("The header needs resource_name and resource_code.");
+        }
+        return columns;
+    }
+
+    private void importChunk(List<ImportRow> chunk, int[] columns, SeenKeys seen, ImportProgress progress,
+                             Writer errors) throws IOException {
+        chunk.parallelStream().forEach(row -> row.validate(columns));
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                seen.check(row);
+            }
+        }
+        List<ImportRow> valid = chunk.stream().filter(row -> row.error == null).collect(Collectors.toList());
+        ChunkCounts counts = new ChunkCounts();
+        boolean committed = true;
+        if (!valid.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsert(valid, counts));
+            } catch (RuntimeException e) {
+                log.error("Import " + progress.getId() + ": chunk " + (progress.getChunks() + 1) + " was rolled back: "
+                        + e.getMessage());
+                committed = false;
+                for (ImportRow row : valid) {
+                    if (row.error == null) {
+                        row.error = "Not imported, its chunk was rolled back: " + e.getMessage();
+                    }
+                }
+            }
+        }
+        long failed = 0;
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                failed++;
+                errors.write(row.line + "," + quote(row.error));
+                for (String field : row.fields) {
+                    errors.write("," + quote(field));
+                }
+                errors.write("\r\n");
+            }
+        }
+        errors.flush();
+        progress.setRowsRead(progress.getRowsRead() + chunk.size());
+        progress.setRowsFailed(progress.getRowsFailed() + failed);
+        progress.setChunks(progress.getChunks() + 1);
+        if (!committed) {
+            return;
+        }
+        progress.setRowsImported(progress.getRowsImported() + counts.rowsImported);
+        progress.setResourcesCreated(progress.getResourcesCreated() + counts.resourcesCreated);
+        progress.setResourcesUpdated(progress.getResourcesUpdated() + counts.resourcesUpdated);
+        progress.setColumnsCreated(progress.getColumnsCreated() + counts.columnsCreated);
+        progress.setColumnsUpdated(progress.getColumnsUpdated() + counts.columnsUpdated);
+    }
+
+    //Existing rows of the chunk are loaded with three IN queries, new ones are persisted and sent as JDBC batches at commit
+    private void upsert(List<ImportRow> rows, ChunkCounts counts) {
+        Map<String, Resource> byName = index(resourceRepository.findAllByResourceNameIn(
+                rows.stream().map(row -> row.resourceName).collect(Collectors.toSet())), Resource::getResourceName);
+        Map<String, Resource> byCode = index(resourceRepository.findAllByResourceCodeIn(
+                rows.stream().map(row -> row.resourceCode).collect(Collectors.toSet())), Resource::getResourceCode);
+        Map<String, Column> byContent = index(columnRepository.findAllByContentIn(
+                rows.stream().filter(row -> row.content != null).map(row -> row.content).collect(Collectors.toSet())),
+                Column::getContent);
+        LocalDateTime now = LocalDateTime.now();
+        for (ImportRow row : rows) {
+            Resource resource = byName.get(row.resourceName);
+            Resource codeOwner = byCode.get(row.resourceCode);
+            if (codeOwner != null && codeOwner != resource) {
+                row.error = "resource_code " + row.resourceCode + " already belongs to resource "
+                        + codeOwner.getResourceName() + ".";
+                continue;
+            }
+            if (resource == null) {
+                resource = new Resource();
+                resource.setResourceName(row.resourceName);
+                resource.setResourceCode(row.resourceCode);
+                resource.setTimeCreated(now);
+                resource.setTimeUpdated(now);
+                entityManager.persist(resource);
+                byName.put(row.resourceName, resource);
+                byCode.put(row.resourceCode, resource);
+                counts.resourcesCreated++;
+            } else if (!row.resourceCode.equals(resource.getResourceCode())) {
+                byCode.remove(resource.getResourceCode());
+                resource.setResourceCode(row.resourceCode);
+                resource.setTimeUpdated(now);
+                byCode.put(row.resourceCode, resource);
+                counts.resourcesUpdated++;
+            }
+            if (row.content != null) {
+                Column column = byContent.get(row.content);
+                if (column == null) {
+                    column = new Column();
+                    column.setContent(row.content);
+                    if (row.columnType != null) {
+                        column.setColumnType(row.columnType);
+                    }
+                    column.setResource(resource);
+                    column.setTimeCreated(now);
+                    column.setTimeUpdated(now);
+                    entityManager.persist(column);
+                    byContent.put(row.content, column);
+                    counts.columnsCreated++;
+                } else if (column.getResource() != resource
+                        || (row.columnType != null && row.columnType != column.getColumnType())) {
+                    column.setResource(resource);
+                    if (row.columnType != null) {
+                        column.setColumnType(row.columnType);
+                    }
+                    column.setTimeUpdated(now);
+                    counts.columnsUpdated++;
+                }
+            }
+            counts.rowsImported++;
+        }
+    }
+
+    private void removeExpired() {
+        LocalDateTime expired = LocalDateTime.now().minus(retention);
+        imports.values().removeIf(progress -> {
+            if (!progress.isFinished() || progress.getTimeCreated().isAfter(expired)) {
+                return false;
+            }
+            delete(progress.getErrorFile());
+            return true;
+        });
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static <T> Map<String, T> index(List<T> entities, Function<T, String> key) {
+        Map<String, T> map = new HashMap<>();
+        for (T entity : entities) {
+            map.put(key.apply(entity), entity);
+        }
+        return map;
+    }
+
+    private static String quote(String value) {
+        return '"' + (value == null ? "" : value.replace("\"", "\"\"")) + '"';
+    }
+
+    private static class ImportRow {
+        final long line;
+        final List<String> fields;
+        String resourceName;
+        String resourceCode;
+        String content;
+        ColumnType columnType;
+        String error;
+
+        ImportRow(long line, List<String> fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+
+        //Checks the row on its own, runs in parallel with the other rows of the chunk
+        void validate(int[] columns) {
+            int expected = Arrays.stream(columns).max().orElse(0) + 1;
+            if (fields.size() < expected) {
+                error = "Expected " + expected + " fields, found " + fields.size() + ".";
+                return;
+            }
+            resourceName = field(columns[0]);
+            resourceCode = field(columns[1]);
+            content = field(columns[2]);
+            String type = field(columns[3]);
+            if (resourceName == null) {
+                error = "resource_name is missing.";
+            } else if (resourceCode == null) {
+                error = "resource_code is missing.";
+            } else if (type != null && content == null) {
+                error = "column_type " + type + " is given without a content.";
+            } else if (type != null) {
+                try {
+                    columnType = ColumnType.valueOf(type.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    error = "Unknown column_type " + type + ", use one of " + Arrays.toString(ColumnType.values()) + ".";
+                }
+            }
+        }
+
+        private String field(int column) {
+            if (column < 0) {
+                return null;
+            }
+            String value = fields.get(column).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    //Keys given by the earlier rows of the file, a key must not be given twice with different meanings
+    private static class SeenKeys {
+        final Map<String, String> codeByName = new HashMap<>();
+        final Map<String, String> nameByCode = new HashMap<>();
+        final Set<String> contents = new HashSet<>();
+
+        void check(ImportRow row) {
+            String code = codeByName.get(row.resourceName);
+            String name = nameByCode.get(row.resourceCode);
+            if (code != null && !code.equals(row.resourceCode)) {
+                row.error = "resource_name " + row.resourceName + " was given resource_code " + code + " earlier in the file.";
+            } else if (name != null && !name.equals(row.resourceName)) {
+                row.error = "resource_code " + row.resourceCode + " was given to resource " + name + " earlier in the file.";
+            } else if (row.content != null && contents.contains(row.content)) {
+                row.error = "content " + row.content + " appears earlier in the file.";
+            } else {
+                codeByName.put(row.resourceName, row.resourceCode);
+                nameByCode.put(row.resourceCode, row.resourceName);
+                if (row.content != null) {
+                    contents.add(row.content);
+                }
+            }
+        }
+    }
+
+    private static class ChunkCounts {
+        long rowsImported;
+        long resourcesCreated;
+        long resourcesUpdated;
+        long columnsCreated;
+        long columnsUpdated;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
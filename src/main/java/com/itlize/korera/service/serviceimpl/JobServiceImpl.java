@@ -0,0 +1,425 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.model.Job;
+import com.itlize.korera.model.JobStatus;
+import com.itlize.korera.repository.JobRepository;
+import com.itlize.korera.service.JobContext;
+import com.itlize.korera.service.JobService;
+import com.itlize.korera.service.JobTask;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Runs jobs on korera.jobs.threads worker threads. Every user has a FIFO queue and the workers take
+ * one job per user in turn, so a user queueing many jobs does not hold back the others. At most
+ * max-queued jobs wait in total and max-queued-per-user per user, beyond that submit is rejected.
+ * The job table is updated when a job starts and finishes, and with its progress at most every
+ * progress-interval, each time with a targeted update guarded by the status the job must still have.
+ * The queue lock is never held during a database call. Cancelling a queued job drops it and discards
+ * its task; a running job is told through its context and stops at its next checkCancelled. Jobs left
+ * queued or running by a previous run of this node are marked failed at startup, finished jobs are
+ * deleted after retention.
+ */
+@Service
+@Slf4j // logs
+public class JobServiceImpl implements JobService, DisposableBean {
+
+    private static final List<JobStatus> UNFINISHED = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+    private static final List<JobStatus> QUEUED = List.of(JobStatus.QUEUED);
+    private static final List<JobStatus> RUNNING = List.of(JobStatus.RUNNING);
+    private static final int MAX_TEXT_LENGTH = 2000;
+
+    private final JobRepository jobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String node;
+    private final int threads;
+    private final int maxQueued;
+    private final int maxQueuedPerUser;
+    private final long progressIntervalNanos;
+    private final Duration retention;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Map<String, ArrayDeque<QueuedJob>> queues = new HashMap<>();
+    //Users with queued jobs, in the order they get their next turn
+    private final ArrayDeque<String> turns = new ArrayDeque<>();
+    //Jobs counted as queued while their row is being saved, per user
+    private final Map<String, Integer> reserved = new HashMap<>();
+    private int queued;
+    private final Map<Integer, RunningJob> running = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile long lastCleanup = System.nanoTime();
+
+    public JobServiceImpl(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${korera.jobs.node:}") String node,
+                          @Value("${korera.jobs.threads:2}") int threads,
+                          @Value("${korera.jobs.max-queued:100}") int maxQueued,
+                          @Value("${korera.jobs.max-queued-per-user:10}") int maxQueuedPerUser,
+                          @Value("${korera.jobs.progress-interval:1s}") Duration progressInterval,
+                          @Value("${korera.jobs.retention:7d}") Duration retention) {
+        this.jobRepository = jobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.node = node.isEmpty() ? hostName() : node;
+        this.threads = threads;
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerUser = maxQueuedPerUser;
+        this.progressIntervalNanos = progressInterval.toNanos();
+        this.retention = retention;
+        Gauge.builder("korera.jobs.queued", this, jobs -> jobs.queued).register(meterRegistry);
+        Gauge.builder("korera.jobs.running", running, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = transactionTemplate.execute(status -> jobRepository.finishAbandoned(node, UNFINISHED,
+                JobStatus.FAILED, "Interrupted, node " + node + " was restarted.", now));
+        if (abandoned > 0) {
+            log.warn("Marked " + abandoned + " jobs of the previous run of " + node + " as failed.");
+        }
+        deleteExpired();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "job-worker-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Running jobs on " + threads + " threads as node " + node + ".");
+    }
+
+    @Override
+    public void destroy() {
+        workers.forEach(Thread::interrupt);
+        List<QueuedJob> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            queues.values().forEach(dropped::addAll);
+            queues.clear();
+            turns.clear();
+            queued = 0;
+        } finally {
+            lock.unlock();
+        }
+        //Their rows are marked failed when this node starts again
+        dropped.forEach(queuedJob -> discard(queuedJob, "Still queued when node " + node + " stopped."));
+    }
+
+    @Override
+    public Job submit(String type, JobTask task) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication == null ? "anonymous" : authentication.getName();
+        if (System.nanoTime() - lastCleanup > Duration.ofHours(1).toNanos()) {
+            deleteExpired();
+        }
+        //The slot is taken before the row is saved, so the limits hold without locking around the insert
+        lock.lock();
+        try {
+            ArrayDeque<QueuedJob> queue = queues.get(username);
+            int waiting = (queue == null ? 0 : queue.size()) + reserved.getOrDefault(username, 0);
+            if (queued >= maxQueued) {
+                throw new RejectedExecutionException("The job queue is full, " + queued + " jobs are waiting.");
+            } else if (waiting >= maxQueuedPerUser) {
+                throw new RejectedExecutionException("User " + username + " already has " + waiting
+                        + " jobs waiting.");
+            }
+            queued++;
+            reserved.merge(username, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Job job = new Job();
+        job.setType(type);
+        job.setUsername(username);
+        job.setNode(node);
+        job.setStatus(JobStatus.QUEUED);
+        job.setTimeCreated(now);
+        job.setTimeUpdated(now);
+        try {
+            jobRepository.save(job);
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                queued--;
+                release(username);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        lock.lock();
+        try {
+            release(username);
+            ArrayDeque<QueuedJob> queue = queues.get(username);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(username, queue);
+                turns.addLast(username);
+            }
+            queue.addLast(new QueuedJob(job.getJobId(), username, task));
+            available.signal();
+            log.info("Queued job " + job.getJobId() + " (" + type + ") for " + username + ", " + queued + " jobs waiting.");
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(String username) {
+        reserved.computeIfPresent(username, (user, count) -> count == 1 ? null : count - 1);
+    }
+
+    @Override
+    public Job findById(Integer id) {
+        Job job = jobRepository.findById(id).orElse(null);
+        if (job == null) {
+            throw new NullPointerException("Job id: " + id + " was not found in the database.");
+        }
+        return job;
+    }
+
+    @Override
+    public List<Job> getJobs(String username) {
+        return jobRepository.findByUsernameOrderByJobIdDesc(username, PageRequest.of(0, 100));
+    }
+
+    @Override
+    public Job cancel(Integer id) {
+        Job job = findById(id);
+        QueuedJob dropped = null;
+        lock.lock();
+        try {
+            ArrayDeque<QueuedJob> queue = queues.get(job.getUsername());
+            if (queue != null) {
+                dropped = queue.stream().filter(queuedJob -> queuedJob.jobId.equals(id)).findFirst().orElse(null);
+            }
+            if (dropped != null) {
+                queue.remove(dropped);
+                queued--;
+                if (queue.isEmpty()) {
+                    queues.remove(job.getUsername());
+                    turns.remove(job.getUsername());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (dropped != null) {
+            log.info("Cancelled queued job " + id + ".");
+            discard(dropped, "Cancelled before it started.");
+            return finish(id, QUEUED, JobStatus.CANCELLED, null, "Cancelled before it started.");
+        }
+        RunningJob runningJob = running.get(id);
+        if (runningJob != null) {
+            runningJob.cancelled = true;
+        }
+        //Jobs of other nodes see the flag with their next progress update
+        log.info("Requested cancellation of job " + id + ".");
+        return update(id, now -> jobRepository.requestCancel(id, UNFINISHED, now));
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedJob next;
+            try {
+                next = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            execute(next);
+        }
+    }
+
+    //The next job of the user whose turn it is
+    private QueuedJob take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (turns.isEmpty()) {
+                available.await();
+            }
+            String username = turns.pollFirst();
+            ArrayDeque<QueuedJob> queue = queues.get(username);
+            QueuedJob next = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(username);
+            } else {
+                turns.addLast(username);
+            }
+            queued--;
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void execute(QueuedJob queuedJob) {
+        RunningJob context = new RunningJob(queuedJob.jobId);
+        running.put(queuedJob.jobId, context);
+        long start = System.nanoTime();
+        //Why the task never ran, it is discarded then
+        String notRun = "The job could not start.";
+        try {
+            Job job = update(queuedJob.jobId, now -> jobRepository.start(queuedJob.jobId, QUEUED, JobStatus.RUNNING, now));
+            if (job.getStatus() != JobStatus.RUNNING) {
+                log.info("Job " + job.getJobId() + " is " + job.getStatus() + ", not running it.");
+                notRun = "The job is " + job.getStatus() + ".";
+                return;
+            }
+            if (job.isCancelRequested()) {
+                notRun = "Cancelled before it started.";
+                throw new CancellationException(notRun);
+            }
+            log.info("Running job " + job.getJobId() + " (" + job.getType() + ") of " + queuedJob.username + "...");
+            notRun = null;
+            String result = queuedJob.task.run(context);
+            finish(queuedJob.jobId, RUNNING, JobStatus.DONE, result, null);
+        } catch (CancellationException e) {
+            finish(queuedJob.jobId, UNFINISHED, JobStatus.CANCELLED, null, e.getMessage());
+        } catch (Exception e) {
+            log.error("Job " + queuedJob.jobId + " failed: " + e.getMessage(), e);
+            finish(queuedJob.jobId, UNFINISHED, JobStatus.FAILED, null,
+                    e.getMessage() == null ? e.toString() : e.getMessage());
+        } finally {
+            running.remove(queuedJob.jobId);
+            if (notRun != null) {
+                discard(queuedJob, notRun);
+            }
+        }
+        log.info("Job " + queuedJob.jobId + " finished in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    private static void discard(QueuedJob queuedJob, String reason) {
+        try {
+            queuedJob.task.discard(reason);
+        } catch (RuntimeException e) {
+            log.warn("Could not discard job " + queuedJob.jobId + ": " + e.getMessage(), e);
+        }
+    }
+
+    //Only finishes a job that still has one of the given statuses, a finished job stays as it is
+    private Job finish(Integer id, List<JobStatus> from, JobStatus status, String result, String error) {
+        return update(id, now -> {
+            RunningJob runningJob = running.get(id);
+            if (runningJob != null && status == JobStatus.DONE) {
+                jobRepository.progress(id, from, Math.max(runningJob.processed, runningJob.total),
+                        runningJob.total, now);
+            }
+            jobRepository.finish(id, from, status, truncate(result), truncate(error), now);
+        });
+    }
+
+    //Runs the update and returns the job as it is afterwards, both in one transaction on the primary
+    private Job update(Integer id, Consumer<LocalDateTime> change) {
+        return transactionTemplate.execute(status -> {
+            change.accept(LocalDateTime.now());
+            return findById(id);
+        });
+    }
+
+    private void deleteExpired() {
+        lastCleanup = System.nanoTime();
+        int deleted = transactionTemplate.execute(status ->
+                jobRepository.deleteFinishedBefore(LocalDateTime.now().minus(retention)));
+        if (deleted > 0) {
+            log.info("Deleted " + deleted + " jobs finished more than " + retention + " ago.");
+        }
+    }
+
+    private static String truncate(String text) {
+        return text == null || text.length() <= MAX_TEXT_LENGTH ? text : text.substring(0, MAX_TEXT_LENGTH);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    private static class QueuedJob {
+        final Integer jobId;
+        final String username;
+        final JobTask task;
+
+        QueuedJob(Integer jobId, String username, JobTask task) {
+            this.jobId = jobId;
+            this.username = username;
+            this.task = task;
+        }
+    }
+
+    private class RunningJob implements JobContext {
+        final Integer jobId;
+        volatile boolean cancelled;
+        volatile long processed;
+        volatile long total;
+        long lastSaved = System.nanoTime();
+
+        RunningJob(Integer jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public Integer getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public void progress(long processed, long total) {
+            this.processed = processed;
+            this.total = total;
+            long now = System.nanoTime();
+            if (now - lastSaved >= progressIntervalNanos) {
+                lastSaved = now;
+                Boolean cancelRequested = transactionTemplate.execute(status -> {
+                    jobRepository.progress(jobId, RUNNING, processed, total, LocalDateTime.now());
+                    return jobRepository.isCancelRequested(jobId);
+                });
+                if (Boolean.TRUE.equals(cancelRequested)) {
+                    cancelled = true;
+                }
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException("Cancelled after " + processed + " of " + total + ".");
+            }
+        }
+    }
+}
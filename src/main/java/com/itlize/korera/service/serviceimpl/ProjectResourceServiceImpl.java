@@ -1,11 +1,13 @@
 package com.itlize.korera.service.serviceimpl;
 
+import com.itlize.korera.dto.BulkResult;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.ProjectResource;
 import com.itlize.korera.model.Resource;
 import com.itlize.korera.repository.ProjectRepository;
 import com.itlize.korera.repository.ProjectResourceRepository;
 import com.itlize.korera.repository.ResourceRepository;
+import com.itlize.korera.repository.TableVersions;
 import com.itlize.korera.repository.UserRepository;
 import com.itlize.korera.service.ProjectResourceService;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +15,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -29,8 +32,14 @@ public class ProjectResourceServiceImpl implements ProjectResourceService {
     private final ResourceRepository resourceRepository;
     @Autowired
     private final ProjectRepository projectRepository;
+    @Autowired
+    private final BulkWriter bulkWriter;
+    //Bulk deletes bypass the entity listeners
+    @Autowired
+    private final TableVersions tableVersions;
 
     @Override
+    @Transactional(readOnly = true)
     public boolean projectResourceIdExists(Integer id) {
         return projectResourceRepository.existsById(id);
     }
@@ -40,6 +49,17 @@ public class ProjectResourceServiceImpl implements ProjectResourceService {
         return projectResourceRepository.save(projectResource);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkResult saveProjectResources(List<ProjectResource> projectResources) {
+        LocalDateTime now = LocalDateTime.now();
+        for (ProjectResource projectResource : projectResources) {
+            projectResource.setTimeCreated(now);
+            projectResource.setTimeUpdated(now);
+        }
+        return bulkWriter.persistAll("project resources", projectResources);
+    }
+
     @Override
     public ProjectResource addResourceToProject(Project project, Resource resource) {
         ProjectResource projectResource = new ProjectResource();
@@ -49,21 +69,25 @@ public class ProjectResourceServiceImpl implements ProjectResourceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProjectResource findById(Integer id) {
         return projectResourceRepository.findById(id).orElse(null);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProjectResource> findByProject(String projectName) {
         return projectResourceRepository.findByProject_ProjectName(projectName);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProjectResource> findByResource(String resourceName) {
         return projectResourceRepository.findByResource_ResourceName(resourceName);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProjectResource> getProjectResources() {
         return projectResourceRepository.findAll();
     }
@@ -96,23 +120,25 @@ public class ProjectResourceServiceImpl implements ProjectResourceService {
 
     @Override
     public void deleteById(Integer id) {
-        projectResourceRepository.findById(id);
-
+        projectResourceRepository.deleteByProjectResourceId(id);
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT_RESOURCE);
     }
 
     @Override
     public void deleteByProject(String projectName) {
         projectResourceRepository.deleteByProject_ProjectName(projectName);
-
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT_RESOURCE);
     }
 
     @Override
     public void deleteByResource(String resourceName) {
         projectResourceRepository.deleteByResource_ResourceName(resourceName);
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT_RESOURCE);
     }
 
     @Override
     public void deleteProjectResources() {
-        projectResourceRepository.deleteAll();
+        projectResourceRepository.deleteAllInBulk();
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT_RESOURCE);
     }
 }
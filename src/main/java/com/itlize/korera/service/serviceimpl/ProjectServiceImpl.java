@@ -1,17 +1,23 @@
 package com.itlize.korera.service.serviceimpl;
 
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.ProjectView;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.User;
+import com.itlize.korera.repository.ProjectCloneRepository;
 import com.itlize.korera.repository.ProjectRepository;
+import com.itlize.korera.repository.TableVersions;
 import com.itlize.korera.repository.UserRepository;
 import com.itlize.korera.service.ProjectService;
+import com.itlize.korera.util.PageToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,12 +31,21 @@ public class ProjectServiceImpl implements ProjectService {
     private final UserRepository userRepository;
     @Autowired
     private final ProjectRepository projectRepository;
+    @Autowired
+    private final BulkDeleter bulkDeleter;
+    @Autowired
+    private final ProjectCloneRepository projectCloneRepository;
+    @Autowired
+    private final TableVersions tableVersions;
+
     @Override
+    @Transactional(readOnly = true)
     public boolean projectNameExists(String name) {
         return projectRepository.existsByProjectName(name);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean projectIdExists(Integer id) {
         return projectRepository.existsById(id);
     }
@@ -45,6 +60,36 @@ public class ProjectServiceImpl implements ProjectService {
     }
 
     @Override
+    public Project cloneProject(String sourceName, String targetName, String username) {
+        log.info("Cloning project " + sourceName + " to " + targetName + "...");
+        long start = System.nanoTime();
+        Project source = projectRepository.findByProjectName(sourceName).orElse(null);
+        if (source == null) {
+            throw new NullPointerException("Project name: " + sourceName + " was not found in the database.");
+        }
+        User user = source.getUser();
+        if (username != null) {
+            user = userRepository.findByUsername(username).orElse(null);
+            if (user == null) {
+                throw new UsernameNotFoundException("Username: " + username + " was not found in the database.");
+            }
+        }
+        Project target = new Project();
+        target.setProjectName(targetName);
+        target.setUser(user);
+        target.setTimeCreated(LocalDateTime.now());
+        target.setTimeUpdated(target.getTimeCreated());
+        projectRepository.saveAndFlush(target);
+        int links = projectCloneRepository.copyLinks(source.getProjectId(), target.getProjectId(), target.getTimeCreated());
+        //The copy bypasses the entity listeners
+        tableVersions.invalidateAfterCommit(TableVersions.PROJECT_RESOURCE);
+        log.info("Project " + targetName + " has been cloned from " + sourceName + " with " + links + " resources in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return target;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Project findByName(String name) {
         log.info("Fetching project with name: " + name + "...");
         Project project =  projectRepository.findByProjectName(name).orElse(null);
@@ -55,6 +100,7 @@ public class ProjectServiceImpl implements ProjectService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Project findById(Integer id) {
         log.info("Fetching project with id: " + id + "...");
         Project project =  projectRepository.findById(id).orElse(null);
@@ -65,19 +111,35 @@ public class ProjectServiceImpl implements ProjectService {
     }
 
     @Override
-    public List<Project> getProjectsByUsername(String username) {
+    @Transactional(readOnly = true)
+    public List<ProjectView> getProjectsByUsername(String username) {
         log.info("Fetching projects by username: " + username + "...");
         List<Project> list = projectRepository.findAllByUser_Username(username);
         log.info("List of all projects associated with user " + username + ": " + list);
-        return projectRepository.findAllByUser_Username(username);
+        return ProjectView.listOf(list);
     }
 
     @Override
-    public List<Project> getProjects() {
+    @Transactional(readOnly = true)
+    public List<ProjectView> getProjects() {
         log.info("Fetching list of projects...");
         List<Project> list = projectRepository.findAll();
         log.info("List of all projects: " + list);
-        return projectRepository.findAll();
+        return ProjectView.listOf(list);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<ProjectView> getProjects(String pageToken, Integer pageSize) {
+        PageToken token = PageToken.decode(pageToken, "id");
+        int size = PageToken.boundedSize(pageSize);
+        log.info("Fetching page of " + size + " projects...");
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Project> rows = token == null
+                ? projectRepository.findAllByOrderByProjectIdAsc(limit)
+                : projectRepository.findByProjectIdGreaterThanOrderByProjectIdAsc(token.getKeyAsInteger(), limit);
+        return KeysetPage.of(rows, size, project -> PageToken.of("id", project.getProjectId()).encode())
+                .map(ProjectView::of);
     }
 
     @Override
@@ -91,30 +153,36 @@ public class ProjectServiceImpl implements ProjectService {
             throw new NullPointerException("Project: " + name + " was not found in the database.");
         }else{
             project.setUser(user);
+            project.setTimeUpdated(LocalDateTime.now());
             log.info("Project " + name + ": " + project);
         }
         return project;
     }
 
     @Override
-    public Project updateName(Project project, String name) {
-        log.info("Updating project name to " + name);
-        project.setProjectName(name);
-        log.info("Project " + name + ": " + project);
-        return project;
+    public Project updateName(String name, String newName) {
+        //Loaded in this write transaction, not from a snapshot read earlier on a replica
+        Project project = projectRepository.findByProjectName(name).orElseThrow(() ->
+                new NullPointerException("Project name: " + name + " was not found in the database."));
+        log.info("Updating project name to " + newName);
+        project.setProjectName(newName);
+        project.setTimeUpdated(LocalDateTime.now());
+        log.info("Project " + newName + ": " + project);
+        return projectRepository.save(project);
     }
 
     @Override
     public void deleteByProjectName(String name) {
         log.info("Deleting project " + name + "...");
-        projectRepository.deleteByProjectName(name);
+        projectRepository.findByProjectName(name)
+                .ifPresent(project -> bulkDeleter.deleteProjects(List.of(project.getProjectId())));
         log.info("Project with name " + name + " has been successfully deleted.");
     }
 
     @Override
     public void deleteByProjectId(Integer id) {
         log.info("Deleting project with id " + id + "...");
-        projectRepository.deleteById(id);
+        bulkDeleter.deleteProjects(List.of(id));
         log.info("Project with id " + id + " has been successfully deleted.");
 
     }
@@ -122,7 +190,7 @@ public class ProjectServiceImpl implements ProjectService {
     @Override
     public void deleteProjects() {
         log.info("Deleting all projects...");
-        projectRepository.deleteAll();
+        bulkDeleter.deleteAllProjects();
         log.info("All projects have been successfully deleted.");
     }
 }
@@ -1,20 +1,45 @@
 package com.itlize.korera.service.serviceimpl;
 
+import com.itlize.korera.dto.AssignmentResult;
+import com.itlize.korera.dto.BulkResult;
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.ProjectResourceRow;
+import com.itlize.korera.dto.ResourceAssignment;
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.dto.UpsertResult;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.ProjectResource;
 import com.itlize.korera.model.Resource;
 import com.itlize.korera.repository.ProjectRepository;
 import com.itlize.korera.repository.ProjectResourceRepository;
 import com.itlize.korera.repository.ResourceRepository;
+import com.itlize.korera.repository.ResourceUpsertRepository;
+import com.itlize.korera.repository.TableVersions;
 import com.itlize.korera.service.ResourceService;
+import com.itlize.korera.util.AfterCommit;
+import com.itlize.korera.util.Chunks;
+import com.itlize.korera.util.PageToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,20 +53,35 @@ public class ResourceServiceImpl implements ResourceService {
 
     @Autowired
     private final ProjectResourceRepository projectResourceRepository;
+    @Autowired
+    private final BulkWriter bulkWriter;
+    @Autowired
+    private final BulkDeleter bulkDeleter;
+    @Autowired
+    private final ResourceUpsertRepository resourceUpsertRepository;
+    //Upserts bypass the entity listeners
+    @Autowired
+    private final TableVersions tableVersions;
+    //Keys passed per IN list by the assignment lookups
+    @Value("${korera.bulk.in-list-size:1000}")
+    private int inListSize;
 
     @Override
+    @Transactional(readOnly = true)
     public boolean resourceNameExists(String name) {
         return resourceRepository.findByResourceName(name).isPresent();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean resourceCodeExists(String code) {
         return resourceRepository.findByResourceCode(code).isPresent();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean resourceIdExists(Integer id) {
-        return resourceRepository.existsById(id);
+        return resourceRepository.findById(id).isPresent();
     }
 
     @Override
@@ -51,10 +91,111 @@ public class ResourceServiceImpl implements ResourceService {
         return resourceRepository.save(resource);
     }
 
+    //Chunks are committed by the bulk writer, so no transaction is held across the whole list
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkResult saveResources(List<Resource> resources) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Resource resource : resources) {
+            resource.setTimeCreated(now);
+            resource.setTimeUpdated(now);
+        }
+        return bulkWriter.persistAll("resources", resources);
+    }
+
+    //Existing rows are read without locks to find name conflicts and unchanged rows. The written codes are
+    //read back afterwards: a code inserted concurrently turns an insert into an update, a name taken by
+    //another code concurrently leaves the row unwritten and reports it as a conflict
+    @Override
+    public UpsertResult upsertByCode(Collection<Resource> resources) {
+        long start = System.nanoTime();
+        //The last row of a code wins, keys compare like MySQL's case-insensitive collation
+        Map<String, Resource> byCode = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Resource resource : resources) {
+            if (resource.getResourceCode() == null || resource.getResourceName() == null) {
+                throw new IllegalArgumentException("Every resource needs a resourceCode and a resourceName.");
+            }
+            byCode.remove(resource.getResourceCode());
+            byCode.put(resource.getResourceCode(), resource);
+        }
+        log.info("Upserting " + byCode.size() + " resources by code...");
+        Map<String, ResourceView> existingByCode = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, ResourceView> existingByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (ResourceView existing : resourceUpsertRepository.findByCodesOrNames(new ArrayList<>(byCode.keySet()),
+                byCode.values().stream().map(Resource::getResourceName).distinct().collect(Collectors.toList()))) {
+            existingByCode.put(existing.getResourceCode(), existing);
+            existingByName.put(existing.getResourceName(), existing);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        List<Resource> writes = new ArrayList<>();
+        Set<Integer> newIds = new HashSet<>();
+        List<String> conflicts = new ArrayList<>();
+        int unchanged = 0;
+        for (Resource resource : byCode.values()) {
+            ResourceView existing = existingByCode.get(resource.getResourceCode());
+            ResourceView nameOwner = existingByName.get(resource.getResourceName());
+            //The name is taken by another code, in the table or earlier in the list
+            if ((nameOwner != null && (existing == null || !nameOwner.getResourceId().equals(existing.getResourceId())))
+                    || !names.add(resource.getResourceName())) {
+                conflicts.add(resource.getResourceCode());
+            } else if (existing == null) {
+                resource.setResourceId(resourceUpsertRepository.nextId(resource));
+                newIds.add(resource.getResourceId());
+                resource.setTimeCreated(now);
+                resource.setTimeUpdated(now);
+                writes.add(resource);
+            } else if (existing.getResourceName().equals(resource.getResourceName())) {
+                unchanged++;
+            } else {
+                resource.setResourceId(existing.getResourceId());
+                resource.setResourceCode(existing.getResourceCode());
+                resource.setTimeCreated(existing.getTimeCreated() == null ? now : existing.getTimeCreated());
+                resource.setTimeUpdated(now);
+                writes.add(resource);
+            }
+        }
+        resourceUpsertRepository.upsert(writes);
+
+        Map<String, ResourceView> written = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (ResourceView row : resourceUpsertRepository.findByCodesOrNames(
+                writes.stream().map(Resource::getResourceCode).collect(Collectors.toList()), new ArrayList<>())) {
+            written.put(row.getResourceCode(), row);
+        }
+        int inserted = 0;
+        List<Integer> updatedIds = new ArrayList<>();
+        for (Resource resource : writes) {
+            ResourceView row = written.get(resource.getResourceCode());
+            if (row == null || !row.getResourceName().equals(resource.getResourceName())) {
+                conflicts.add(resource.getResourceCode());
+            } else if (newIds.contains(row.getResourceId())) {
+                inserted++;
+            } else {
+                updatedIds.add(row.getResourceId());
+            }
+        }
+        if (inserted + updatedIds.size() > 0) {
+            AfterCommit.run(() -> {
+                resourceUpsertRepository.evictCaches(updatedIds);
+                tableVersions.invalidate(TableVersions.RESOURCE);
+            });
+        }
+        UpsertResult result = new UpsertResult(inserted, updatedIds.size(), unchanged,
+                conflicts, (System.nanoTime() - start) / 1_000_000);
+        log.info("Upserted resources by code: " + result);
+        return result;
+    }
+
     @Override
     public ProjectResource addResourceToProject(String resourceName, String projectName) {
         Resource resource = resourceRepository.findByResourceName(resourceName).orElse(null);
         Project project = projectRepository.findByProjectName(projectName).orElse(null);
+        if (resource == null) {
+            throw new NullPointerException("Resource name: " + resourceName + " was not found in the database.");
+        } else if (project == null) {
+            throw new NullPointerException("Project name: " + projectName + " was not found in the database.");
+        }
         ProjectResource projectResource = new ProjectResource();
         projectResource.setResource(resource);
         projectResource.setProject(project);
@@ -65,7 +206,74 @@ public class ResourceServiceImpl implements ResourceService {
         return projectResource;
     }
 
+    //One IN query per key type and in-list-size keys and one query for the existing links, the new links go out as
+    //JDBC batches at commit. Missing key lists count as empty and null keys are skipped
+    @Override
+    public AssignmentResult addResourcesToProject(String projectName, ResourceAssignment assignment) {
+        long start = System.nanoTime();
+        Project project = projectRepository.findByProjectName(projectName).orElse(null);
+        if (project == null) {
+            throw new NullPointerException("Project name: " + projectName + " was not found in the database.");
+        }
+        List<String> names = distinctKeys(assignment.getNames());
+        List<String> codes = distinctKeys(assignment.getCodes());
+        List<Integer> ids = distinctKeys(assignment.getIds());
+        Map<Integer, Resource> resources = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        Set<String> foundNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (List<String> chunk : Chunks.of(names, inListSize)) {
+            for (Resource resource : resourceRepository.findAllByResourceNameIn(chunk)) {
+                resources.put(resource.getResourceId(), resource);
+                foundNames.add(resource.getResourceName());
+            }
+        }
+        names.stream().filter(name -> !foundNames.contains(name)).forEach(notFound::add);
+        Set<String> foundCodes = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (List<String> chunk : Chunks.of(codes, inListSize)) {
+            for (Resource resource : resourceRepository.findAllByResourceCodeIn(chunk)) {
+                resources.put(resource.getResourceId(), resource);
+                foundCodes.add(resource.getResourceCode());
+            }
+        }
+        codes.stream().filter(code -> !foundCodes.contains(code)).forEach(notFound::add);
+        Set<Integer> foundIds = new HashSet<>();
+        for (List<Integer> chunk : Chunks.of(ids, inListSize)) {
+            for (Resource resource : resourceRepository.findAllById(chunk)) {
+                resources.put(resource.getResourceId(), resource);
+                foundIds.add(resource.getResourceId());
+            }
+        }
+        ids.stream().filter(id -> !foundIds.contains(id)).map(String::valueOf).forEach(notFound::add);
+
+        Set<Integer> linked = new HashSet<>(projectResourceRepository.findResourceIdsByProjectId(project.getProjectId()));
+        LocalDateTime now = LocalDateTime.now();
+        List<ProjectResource> links = new ArrayList<>();
+        for (Resource resource : resources.values()) {
+            if (!linked.contains(resource.getResourceId())) {
+                ProjectResource projectResource = new ProjectResource();
+                projectResource.setProject(project);
+                projectResource.setResource(resource);
+                projectResource.setTimeCreated(now);
+                projectResource.setTimeUpdated(now);
+                links.add(projectResource);
+            }
+        }
+        projectResourceRepository.saveAll(links);
+        AssignmentResult result = new AssignmentResult(links.size(), resources.size() - links.size(), notFound,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Assigned resources to project " + projectName + ": " + result);
+        return result;
+    }
+
+    private static <T> List<T> distinctKeys(List<T> keys) {
+        if (keys == null) {
+            return new ArrayList<>();
+        }
+        return keys.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public Resource findByName(String name) {
         log.info("Fetching resource with name: " + name + "...");
         Resource resource =  resourceRepository.findByResourceName(name).orElse(null);
@@ -77,6 +285,7 @@ public class ResourceServiceImpl implements ResourceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Resource findByCode(String code) {
         log.info("Fetching resource with code: " + code + "...");
         Resource resource =  resourceRepository.findByResourceCode(code).orElse(null);
@@ -88,6 +297,7 @@ public class ResourceServiceImpl implements ResourceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Resource findById(Integer id) {
         log.info("Fetching resource with id: " + id + "...");
         Resource resource =  resourceRepository.findById(id).orElse(null);
@@ -99,43 +309,77 @@ public class ResourceServiceImpl implements ResourceService {
     }
 
     @Override
-    public List<ProjectResource> getResourcesByProject(String projectName) {
+    @Transactional(readOnly = true)
+    public List<ProjectResourceRow> getResourcesByProject(String projectName) {
         log.info("Fetching list of resources based on project...");
-        List<ProjectResource> list = projectResourceRepository.findByProject_ProjectName(projectName);
-        log.info("List of all resources: " + list);
-        return projectResourceRepository.findByProject_ProjectName(projectName);
+        List<ProjectResourceRow> list = projectResourceRepository.findRowsByProjectName(projectName);
+        log.info("Project " + projectName + " uses " + list.size() + " resources.");
+        return list;
     }
 
     @Override
-    public List<ProjectResource> getProjectsByResource(String resourceName) {
+    @Transactional(readOnly = true)
+    public List<ProjectResourceRow> getProjectsByResource(String resourceName) {
         log.info("Fetching list of projects based on resources...");
-        List<ProjectResource> list = projectResourceRepository.findByResource_ResourceName(resourceName);
-        log.info("List of all projects: " + list);
-        return projectResourceRepository.findByResource_ResourceName(resourceName);
+        List<ProjectResourceRow> list = projectResourceRepository.findRowsByResourceName(resourceName);
+        log.info("Resource " + resourceName + " is used by " + list.size() + " projects.");
+        return list;
     }
 
     @Override
-    public List<Resource> getResources() {
-        log.info("Fetching list of projects...");
+    @Transactional(readOnly = true)
+    public List<ResourceView> getResources() {
+        log.info("Fetching list of resources...");
         List<Resource> list = resourceRepository.findAll();
-        log.info("List of all projects: " + list);
-        return resourceRepository.findAll();
+        log.info("Fetched " + list.size() + " resources.");
+        return ResourceView.listOf(list);
     }
 
     @Override
-    public Resource updateName(Resource resource, String name) {
-        log.info("Updating resource name to " + name);
-        resource.setResourceName(name);
-        log.info("Resource name " + name + ": " + resource);
-        return resource;
+    @Transactional(readOnly = true)
+    public KeysetPage<ResourceView> getResources(String pageToken, Integer pageSize, String sort) {
+        int size = PageToken.boundedSize(pageSize);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        log.info("Fetching page of " + size + " resources sorted by " + sort + "...");
+        if ("name".equals(sort)) {
+            PageToken token = PageToken.decode(pageToken, "name");
+            List<Resource> rows = token == null
+                    ? resourceRepository.findAllByOrderByResourceNameAsc(limit)
+                    : resourceRepository.findByResourceNameGreaterThanOrderByResourceNameAsc(token.getKey(), limit);
+            return KeysetPage.of(rows, size, resource -> PageToken.of("name", resource.getResourceName()).encode())
+                    .map(ResourceView::of);
+        } else if (sort == null || "id".equals(sort)) {
+            PageToken token = PageToken.decode(pageToken, "id");
+            List<Resource> rows = token == null
+                    ? resourceRepository.findAllByOrderByResourceIdAsc(limit)
+                    : resourceRepository.findByResourceIdGreaterThanOrderByResourceIdAsc(token.getKeyAsInteger(), limit);
+            return KeysetPage.of(rows, size, resource -> PageToken.of("id", resource.getResourceId()).encode())
+                    .map(ResourceView::of);
+        }
+        throw new IllegalArgumentException("Resources cannot be sorted by \"" + sort + "\".");
     }
 
     @Override
-    public Resource updateCode(Resource resource, String code) {
-        log.info("Updating resource code to " + code);
-        resource.setResourceCode(code);
-        log.info("Resource code " + code + ": " + resource);
-        return resource;
+    public Resource updateName(String name, String newName) {
+        //Loaded in this write transaction, not from a snapshot read earlier on a replica
+        Resource resource = resourceRepository.findByResourceName(name).orElseThrow(() ->
+                new NullPointerException("Resource name: " + name + " was not found in the database."));
+        log.info("Updating resource name to " + newName);
+        resource.setResourceName(newName);
+        resource.setTimeUpdated(LocalDateTime.now());
+        log.info("Resource name " + newName + ": " + resource);
+        return resourceRepository.save(resource);
+    }
+
+    @Override
+    public Resource updateCode(String code, String newCode) {
+        Resource resource = resourceRepository.findByResourceCode(code).orElseThrow(() ->
+                new NullPointerException("Resource code: " + code + " was not found in the database."));
+        log.info("Updating resource code to " + newCode);
+        resource.setResourceCode(newCode);
+        resource.setTimeUpdated(LocalDateTime.now());
+        log.info("Resource code " + newCode + ": " + resource);
+        return resourceRepository.save(resource);
     }
 
     @Override
@@ -169,17 +413,19 @@ public class ResourceServiceImpl implements ResourceService {
 
     @Override
     public void deleteByName(String name) {
-        resourceRepository.deleteByResourceName(name);
+        resourceRepository.findByResourceName(name)
+                .ifPresent(resource -> bulkDeleter.deleteResources(List.of(resource.getResourceId())));
     }
 
     @Override
     public void deleteByCode(String code) {
-        resourceRepository.deleteByResourceCode(code);
+        resourceRepository.findByResourceCode(code)
+                .ifPresent(resource -> bulkDeleter.deleteResources(List.of(resource.getResourceId())));
     }
 
     @Override
     public void deleteById(Integer id) {
-        resourceRepository.deleteById(id);
+        bulkDeleter.deleteResources(List.of(id));
     }
 
     @Override
@@ -188,6 +434,7 @@ public class ResourceServiceImpl implements ResourceService {
         ProjectResource projectResource = projectResourceRepository.findById(projectResourceId).orElse(null);
         if (projectResource != null) {
             projectResource.setProject(null);
+            projectResource.setTimeUpdated(LocalDateTime.now());
         }
         return projectResource;
     }
@@ -198,12 +445,13 @@ public class ResourceServiceImpl implements ResourceService {
         ProjectResource projectResource = projectResourceRepository.findById(projectResourceId).orElse(null);
         if (projectResource != null) {
             projectResource.setResource(null);
+            projectResource.setTimeUpdated(LocalDateTime.now());
         }
         return projectResource;
     }
 
     @Override
     public void deleteResources() {
-        resourceRepository.deleteAll();
+        bulkDeleter.deleteAllResources();
     }
 }
@@ -7,18 +7,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.HashSet;
 
 @Service
 @Transactional
 @RequiredArgsConstructor @Slf4j // logs
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -34,4 +36,19 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),authorities);
     }
+
+    //Stores the password rehashed with the current BCrypt cost after a successful login
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername()).orElse(null);
+        if(user == null){
+            throw new UsernameNotFoundException("Username " + userDetails.getUsername() + " not found in database");
+        }
+        log.info("Rehashing password of " + user.getUsername() + " with the current cost.");
+        user.setPassword(newPassword);
+        user.setTimeUpdated(LocalDateTime.now());
+        userRepository.save(user);
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword).build();
+    }
 }
@@ -1,17 +1,23 @@
 package com.itlize.korera.service.serviceimpl;
 
+import com.itlize.korera.dto.KeysetPage;
+import com.itlize.korera.dto.UserView;
 import com.itlize.korera.model.Role;
 import com.itlize.korera.model.User;
 import com.itlize.korera.repository.UserRepository;
+import com.itlize.korera.security.TokenRevocationStore;
 import com.itlize.korera.service.UserService;
+import com.itlize.korera.util.AfterCommit;
+import com.itlize.korera.util.PageToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -29,14 +35,24 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private final PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private final BulkDeleter bulkDeleter;
+
+    //Tokens of a user are revoked when the password, role or username changes, or the user is deleted,
+    //once the change is committed
+    @Autowired
+    private final TokenRevocationStore tokenRevocationStore;
+
     //Check if username exists
     @Override
+    @Transactional(readOnly = true)
     public boolean usernameExists(String username){
         return userRepository.findByUsername(username).isPresent();
     }
 
     //Checking if user exists by Id
     @Override
+    @Transactional(readOnly = true)
     public boolean userIdExists(Integer userId){
         return userRepository.existsById(userId);
     }
@@ -54,6 +70,7 @@ public class UserServiceImpl implements UserService {
 
     //Find user by username
     @Override
+    @Transactional(readOnly = true)
     public User findByUsername(String username) {
         log.info("Fetching user with username: " + username + "...");
         User user =  userRepository.findByUsername(username).orElse(null);
@@ -67,6 +84,7 @@ public class UserServiceImpl implements UserService {
 
     //Find user by user id
     @Override
+    @Transactional(readOnly = true)
     public User findByUserId(Integer userId) {
         log.info("Fetching user with id: " + userId + "...");
         User user =  userRepository.findById(userId).orElse(null);
@@ -79,38 +97,54 @@ public class UserServiceImpl implements UserService {
 
     //Find all users
     @Override
-    public List<User> getUsers() {
+    @Transactional(readOnly = true)
+    public List<UserView> getUsers() {
         log.info("Fetching all users.");
-        return userRepository.findAll();
+        return UserView.listOf(userRepository.findAll());
+    }
+
+    //Find one page of users ordered by user id
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<UserView> getUsers(String pageToken, Integer pageSize) {
+        PageToken token = PageToken.decode(pageToken, "id");
+        int size = PageToken.boundedSize(pageSize);
+        log.info("Fetching page of " + size + " users.");
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<User> rows = token == null
+                ? userRepository.findAllByOrderByUserIdAsc(limit)
+                : userRepository.findByUserIdGreaterThanOrderByUserIdAsc(token.getKeyAsInteger(), limit);
+        return KeysetPage.of(rows, size, user -> PageToken.of("id", user.getUserId()).encode()).map(UserView::of);
     }
 
     //Update username
     @Override
-    public User updateUsername(User user, String username) {
-        String original = user.getUsername();
-        log.info("Updating username " + original + " to " + username + "...");
-        user.setUsername(username);
+    public User updateUsername(String username, String newUsername) {
+        User user = load(username);
+        log.info("Updating username " + username + " to " + newUsername + "...");
+        user.setUsername(newUsername);
         user.setTimeUpdated(LocalDateTime.now());
-        log.info("Username " + original + " has been updated to " + username + ".");
+        log.info("Username " + username + " has been updated to " + newUsername + ".");
+        AfterCommit.run(() -> tokenRevocationStore.revokeAllOf(username));
         return userRepository.save(user);
     }
 
     //Update password
     @Override
-    public User updatePassword(User user, String password) {
-        String original = passwordEncoder.encode(user.getPassword());
-        log.info("Updating password " + original + " to " + password + "...");
-        log.info("Encoding new password " + password +"...");
-        password = passwordEncoder.encode(password);
-        user.setPassword(password);
+    public User updatePassword(String username, String password) {
+        User user = load(username);
+        log.info("Updating password of " + username + "...");
+        user.setPassword(passwordEncoder.encode(password));
         user.setTimeUpdated(LocalDateTime.now());
-        log.info("Password " + original + " has been updated to " + password + ".");
+        log.info("Password of " + username + " has been updated.");
+        AfterCommit.run(() -> tokenRevocationStore.revokeAllOf(username));
         return userRepository.save(user);
     }
 
     //Update email
     @Override
-    public User updateEmail(User user, String email) {
+    public User updateEmail(String username, String email) {
+        User user = load(username);
         String original = user.getEmail();
         log.info("Updating email " + original + " to " + email + "...");
         user.setEmail(email);
@@ -121,7 +155,8 @@ public class UserServiceImpl implements UserService {
 
     //Update first name
     @Override
-    public User updateFirstName(User user, String firstName) {
+    public User updateFirstName(String username, String firstName) {
+        User user = load(username);
         String original = user.getFirstName();
         log.info("Updating first name " + original + " to " + firstName + "...");
         user.setFirstName(firstName);
@@ -132,7 +167,8 @@ public class UserServiceImpl implements UserService {
 
     //Update last name
     @Override
-    public User updateLastName(User user, String lastName) {
+    public User updateLastName(String username, String lastName) {
+        User user = load(username);
         String original = user.getLastName();
         log.info("Updating last name " + original + " to " + lastName + "...");
         user.setLastName(lastName);
@@ -143,7 +179,8 @@ public class UserServiceImpl implements UserService {
 
     //Update phone
     @Override
-    public User updatePhone(User user, Integer phone) {
+    public User updatePhone(String username, Integer phone) {
+        User user = load(username);
         Integer original = user.getPhone();
         log.info("Updating phone " + original + " to " + phone + "...");
         user.setPhone(phone);
@@ -152,35 +189,49 @@ public class UserServiceImpl implements UserService {
         return userRepository.save(user);
     }
 
-    //Update phone
+    //Update role
     @Override
-    public User updateRole(User user, Role role) {
+    public User updateRole(String username, Role role) {
+        User user = load(username);
         Role original = user.getRole();
         log.info("Updating role " + original.name() + " to " + role.name() + "...");
         user.setRole(role);
         user.setTimeUpdated(LocalDateTime.now());
         log.info("Role " + original + " has been updated to " + role.name() + ".");
+        AfterCommit.run(() -> tokenRevocationStore.revokeAllOf(username));
         return userRepository.save(user);
     }
 
+    //Updates load the user in their own write transaction (on the primary), so they change
+    //the current row and not a snapshot read earlier, possibly from a replica
+    private User load(String username) {
+        return userRepository.findByUsername(username).orElseThrow(() ->
+                new UsernameNotFoundException("Username: " + username + " was not found in the database."));
+    }
+
     //Delete user by username
     @Override
     public void deleteByUsername(String username) {
         log.info("Deleting user with username: " + username);
-        userRepository.deleteByUsername(username);
+        AfterCommit.run(() -> tokenRevocationStore.revokeAllOf(username));
+        userRepository.findByUsername(username)
+                .ifPresent(user -> bulkDeleter.deleteUsers(List.of(user.getUserId())));
     }
 
     //Delete user by user id
     @Override
     public void deleteByUserId(Integer userId) {
-        log.info("Deleting user with username: " + userId);
-        userRepository.deleteById(userId);
+        log.info("Deleting user with user id: " + userId);
+        userRepository.findById(userId).ifPresent(user ->
+                AfterCommit.run(() -> tokenRevocationStore.revokeAllOf(user.getUsername())));
+        bulkDeleter.deleteUsers(List.of(userId));
     }
 
     //Delete all users
     @Override
     public void deleteUsers() {
         log.info("Deleting all users.");
-        userRepository.deleteAll();
+        bulkDeleter.deleteAllUsers();
+        AfterCommit.run(tokenRevocationStore::revokeAll);
     }
 }
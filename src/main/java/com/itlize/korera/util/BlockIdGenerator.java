@@ -0,0 +1,101 @@
+package com.itlize.korera.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pooled-lo id generator: every node reserves a block of ids per table with one update of the
+ * sequence table, then hands out the block from memory, so most inserts need no extra round trip.
+ * All tables draw their blocks from the one hibernate_sequence table, which keeps the ids issued
+ * before blocks were used valid; it stays a table on databases with real sequences, so tables
+ * with different block sizes can share it. The block size of a table is read from the hibernate
+ * setting korera.id.block-size.[table], falling back to korera.id.block-size.default.
+ */
+public class BlockIdGenerator extends SequenceStyleGenerator {
+    public static final String BLOCK_SIZE_SETTING = "korera.id.block-size.";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+    public static final String SEQUENCE_TABLE = "hibernate_sequence";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Counter refills;
+    private Counter contentions;
+    private Timer refillTime;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String table = params.getProperty(PersistentIdentifierGenerator.TABLE);
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        params.setProperty(SEQUENCE_PARAM, SEQUENCE_TABLE);
+        params.setProperty(FORCE_TBL_PARAM, "true");
+        params.setProperty(INCREMENT_PARAM, String.valueOf(blockSize(settings, table)));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+
+        refills = Counter.builder("korera.id.block.refills")
+                .description("Id blocks reserved from the sequence table")
+                .tag("table", table)
+                .register(Metrics.globalRegistry);
+        contentions = Counter.builder("korera.id.block.contentions")
+                .description("Id requests that had to wait for another thread of the same table")
+                .tag("table", table)
+                .register(Metrics.globalRegistry);
+        refillTime = Timer.builder("korera.id.block.refill.time")
+                .description("Time spent reserving a new id block")
+                .tag("table", table)
+                .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        if (!lock.tryLock()) {
+            contentions.increment();
+            lock.lock();
+        }
+        try {
+            IntegralDataTypeHolder blockBefore = lastBlock();
+            long start = System.nanoTime();
+            Serializable id = super.generate(session, object);
+            if (getOptimizer().getLastSourceValue() != blockBefore) {
+                refills.increment();
+                refillTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //The optimizer has no state until it reserved its first block, and throws when asked for it
+    private IntegralDataTypeHolder lastBlock() {
+        try {
+            return getOptimizer().getLastSourceValue();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static int blockSize(Map<?, ?> settings, String table) {
+        Object value = settings.get(BLOCK_SIZE_SETTING + table);
+        if (value == null) {
+            value = settings.get(BLOCK_SIZE_SETTING + "default");
+        }
+        return value == null ? DEFAULT_BLOCK_SIZE : Integer.parseInt(value.toString().trim());
+    }
+}
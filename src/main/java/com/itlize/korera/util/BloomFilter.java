@@ -0,0 +1,69 @@
+package com.itlize.korera.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings, about 1% false positives up to its capacity.
+ * A key is namespaced by a prefix character so different kinds of keys can share one filter
+ * without building concatenated strings. Reads are lock-free, elements cannot be removed,
+ * callers rebuild a fresh filter instead.
+ */
+public final class BloomFilter {
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASHES = 7;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int capacity;
+
+    public BloomFilter(int capacity) {
+        this.capacity = Math.max(capacity, 64);
+        this.bits = (long) this.capacity * BITS_PER_ELEMENT;
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void add(char prefix, String key) {
+        long hash = hash(prefix, key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(char prefix, String key) {
+        long hash = hash(prefix, key);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //64-bit FNV-1a with a final avalanche so both halves are usable as independent hashes
+    private static long hash(char prefix, String key) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ prefix) * 0x100000001b3L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
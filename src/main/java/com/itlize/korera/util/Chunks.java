@@ -0,0 +1,19 @@
+package com.itlize.korera.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Chunks {
+
+    private Chunks() {
+    }
+
+    //Splits a list into consecutive views of at most size elements, e.g. to keep IN lists bounded
+    public static <T> List<List<T>> of(List<T> list, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += size) {
+            chunks.add(list.subList(from, Math.min(from + size, list.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,102 @@
+package com.itlize.korera.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV one record at a time: quoted fields may hold commas, doubled quotes and line
+ * breaks, records end with CRLF or LF. Only the current record is kept in memory.
+ * Not thread safe.
+ */
+public final class CsvReader {
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private int peeked = -2;
+    private long line = 1;
+
+    //The reader should be buffered, it is read one character at a time
+    public CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    //Line the next record starts on
+    public long getLine() {
+        return line;
+    }
+
+    //The fields of the next record, or null at the end of the input
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Quoted field is not closed before the end of the file.");
+                } else if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append(field, '"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(field, (char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' && peek() == '\n') {
+                //CRLF ends the record like LF
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else {
+                append(field, (char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void append(StringBuilder field, char c) throws IOException {
+        if (field.length() >= maxFieldLength) {
+            throw new IOException("Field on line " + line + " is longer than " + maxFieldLength + " characters.");
+        }
+        field.append(c);
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
@@ -0,0 +1,113 @@
+package com.itlize.korera.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, level n slots span 64^n ticks. An item is
+ * filed in the lowest level that still distinguishes its deadline from the current tick and moves
+ * down a level each time the wheel reaches its slot, so adding is O(1) and advancing costs one
+ * slot per tick plus the items that actually move or expire. Deadlines beyond the top level
+ * (64^4 ticks) wait in an overflow list that is refiled whenever the top level turns.
+ * Not thread-safe, callers synchronize.
+ */
+public final class HierarchicalTimingWheel<T> {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots = new ArrayList<>();
+    private List<Entry<T>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //Returns false if the deadline has already passed, the item is then not added
+    public boolean add(T item, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        file(new Entry<>(item, deadlineTick));
+        size++;
+        return true;
+    }
+
+    //Moves the wheel to nowMillis and hands every item whose deadline passed to expired
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(slot(level, currentTick), expired);
+                }
+            }
+            if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+                List<Entry<T>> waiting = overflow;
+                overflow = new ArrayList<>();
+                refile(waiting, expired);
+            }
+            cascade(slot(0, currentTick), expired);
+        }
+    }
+
+    private void cascade(List<Entry<T>> slot, Consumer<T> expired) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Entry<T>> entries = new ArrayList<>(slot);
+        slot.clear();
+        refile(entries, expired);
+    }
+
+    private void refile(List<Entry<T>> entries, Consumer<T> expired) {
+        for (Entry<T> entry : entries) {
+            if (entry.deadlineTick <= currentTick) {
+                size--;
+                expired.accept(entry.item);
+            } else {
+                file(entry);
+            }
+        }
+    }
+
+    private void file(Entry<T> entry) {
+        long distinguishingBits = entry.deadlineTick ^ currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (distinguishingBits >>> (SLOT_BITS * (level + 1)) == 0) {
+                slot(level, entry.deadlineTick).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private List<Entry<T>> slot(int level, long tick) {
+        return slots.get(level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK));
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
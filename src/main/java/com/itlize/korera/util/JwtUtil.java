@@ -1,21 +1,43 @@
 package com.itlize.korera.util;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class JwtUtil {
+    //Authorities of the user, so a verified token is enough to authenticate a request
+    public static final String ROLE_CLAIM = "role";
+    //Issue time in milliseconds, iat only has seconds and revocation cutoffs need the exact order
+    public static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+    public static final long TOKEN_VALIDITY_MILLIS = 1000 * 60 * 60 * 10;
+
     private String SECRET_KEY = "secret";
 
+    //Built once instead of decoding the secret for every token signed or parsed
+    private final Key signingKey = new SecretKeySpec(TextCodec.BASE64.decode(SECRET_KEY),
+            SignatureAlgorithm.HS256.getJcaName());
+    private final JwtParser parser = Jwts.parser().setSigningKey(signingKey);
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -28,8 +50,31 @@ public class JwtUtil {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+
+    //Verifies signature and expiration, throws a JwtException if either fails
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    //Principal of a verified token, null for tokens issued without the role claim
+    public UserDetails extractPrincipal(Claims claims) {
+        Object roles = claims.get(ROLE_CLAIM);
+        if (!(roles instanceof Collection)) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = ((Collection<?>) roles).stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+        return new User(claims.getSubject(), "", authorities);
+    }
+
+    //Tokens issued before the millisecond claim existed fall back to iat
+    public static long issuedAtMillis(Claims claims) {
+        Object millis = claims.get(ISSUED_AT_MILLIS_CLAIM);
+        if (millis instanceof Number) {
+            return ((Number) millis).longValue();
+        }
+        return claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime();
     }
 
     private Boolean isTokenExpired(String token) {
@@ -38,18 +83,24 @@ public class JwtUtil {
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
         return createToken(claims, userDetails.getUsername());
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
 
-        return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY).compact();
+        //The id lets a single token be revoked, see TokenRevocationStore
+        long now = System.currentTimeMillis();
+        claims.put(ISSUED_AT_MILLIS_CLAIM, now);
+        return Jwts.builder().setClaims(claims).setId(UUID.randomUUID().toString()).setSubject(subject)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TOKEN_VALIDITY_MILLIS))
+                .signWith(SignatureAlgorithm.HS256, signingKey).compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 }
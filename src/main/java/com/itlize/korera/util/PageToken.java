@@ -0,0 +1,75 @@
+package com.itlize.korera.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset (seek) pagination.
+ * A token remembers the sort key it was issued for and the key of the last row returned,
+ * so the next page is fetched with "where key > last order by key limit n" instead of an offset.
+ */
+public final class PageToken {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String SEPARATOR = ":";
+
+    private final String sort;
+    private final String key;
+
+    private PageToken(String sort, String key) {
+        this.sort = sort;
+        this.key = key;
+    }
+
+    public static PageToken of(String sort, Object key) {
+        return new PageToken(sort, String.valueOf(key));
+    }
+
+    //Returns null for the first page, throws IllegalArgumentException for a malformed or foreign token
+    public static PageToken decode(String token, String expectedSort) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Page token \"" + token + "\" is not valid.", e);
+        }
+        int index = decoded.indexOf(SEPARATOR);
+        if (index < 0 || !decoded.substring(0, index).equals(expectedSort)) {
+            throw new IllegalArgumentException("Page token \"" + token + "\" was not issued for sort \""
+                    + expectedSort + "\".");
+        }
+        return new PageToken(expectedSort, decoded.substring(index + 1));
+    }
+
+    public static int boundedSize(Integer pageSize) {
+        if (pageSize == null || pageSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort + SEPARATOR + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Integer getKeyAsInteger() {
+        try {
+            return Integer.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Page token key \"" + key + "\" is not a valid id.", e);
+        }
+    }
+}
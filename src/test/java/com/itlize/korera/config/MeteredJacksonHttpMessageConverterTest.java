@@ -0,0 +1,163 @@
+package com.itlize.korera.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.UserView;
+import com.itlize.korera.model.Column;
+import com.itlize.korera.model.Project;
+import com.itlize.korera.model.ProjectResource;
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.model.Role;
+import com.itlize.korera.model.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Responses as the converter of JacksonConfig writes them, with an ObjectMapper built like Spring Boot's
+class MeteredJacksonHttpMessageConverterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new JacksonConfig().blackbirdModule()).build();
+    MeteredJacksonHttpMessageConverter converter;
+    User user = user();
+
+    @BeforeEach
+    void setUp() {
+        converter = new JacksonConfig().meteredJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void userResponsesCarryNoPasswordAndNoGraph() throws IOException {
+        JsonNode view = write(UserView.of(user), "/user/username/{username}");
+        JsonNode entity = write(user, "/user/username/{username}");
+
+        for (JsonNode json : List.of(view, entity)) {
+            assertEquals("alice", json.get("username").asText());
+            assertFalse(json.has("password"));
+            assertFalse(json.has("@id"));
+            assertFalse(json.has("projects"));
+        }
+    }
+
+    @Test
+    void entityCollectionsAreNotSerialized() throws IOException {
+        Project project = user.getProjects().get(0);
+        Resource resource = project.getProjectResource().get(0).getResource();
+
+        JsonNode projectJson = write(project, "/project/projectname/{projectname}");
+        JsonNode resourceJson = write(resource, "/resource/name/{name}");
+
+        assertFalse(projectJson.has("projectResource"));
+        assertFalse(projectJson.get("user").has("password"));
+        assertFalse(projectJson.get("user").has("projects"));
+        assertFalse(resourceJson.has("columns"));
+        assertFalse(resourceJson.has("projectResources"));
+        assertFalse(resourceJson.has("@id"));
+        assertEquals("alice", write(ProjectView.of(project), "/project/projectname/{projectname}")
+                .get("username").asText());
+    }
+
+    @Test
+    void passwordIsStillReadFromRequestBodies() throws IOException {
+        User body = objectMapper.readValue("{\"username\":\"bob\",\"password\":\"secret\"}", User.class);
+
+        assertEquals("bob", body.getUsername());
+        assertEquals("secret", body.getPassword());
+    }
+
+    @Test
+    void serializationIsRecordedPerEndpointPattern() throws IOException {
+        MockHttpOutputMessage first = writeMessage(UserView.of(user), "/user/username/{username}");
+        User other = user();
+        other.setUsername("a-much-longer-username");
+        MockHttpOutputMessage second = writeMessage(UserView.of(other), "/user/username/{username}");
+        writeMessage(UserView.of(user), "/user/getusers");
+
+        Timer timer = meterRegistry.get("korera.http.serialization").tag("endpoint", "/user/username/{username}").timer();
+        DistributionSummary size = meterRegistry.get("korera.http.response.size")
+                .tag("endpoint", "/user/username/{username}").summary();
+        assertEquals(2, timer.count());
+        assertEquals(2, size.count());
+        assertEquals(first.getBodyAsBytes().length + second.getBodyAsBytes().length, size.totalAmount());
+        assertEquals(1, meterRegistry.get("korera.http.response.size").tag("endpoint", "/user/getusers")
+                .summary().count());
+    }
+
+    @Test
+    void writesOutsideARequestAreRecordedAsUnknown() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(UserView.of(user), MediaType.APPLICATION_JSON, message);
+
+        assertEquals(message.getBodyAsBytes().length, meterRegistry.get("korera.http.response.size")
+                .tag("endpoint", "UNKNOWN").summary().totalAmount());
+    }
+
+    private JsonNode write(Object body, String pattern) throws IOException {
+        return objectMapper.readTree(writeMessage(body, pattern).getBodyAsBytes());
+    }
+
+    private MockHttpOutputMessage writeMessage(Object body, String pattern) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(body, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    //A user with a project linking a resource that has a column, every relation set both ways
+    private static User user() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 9, 30);
+        User user = new User();
+        user.setUserId(1);
+        user.setUsername("alice");
+        user.setPassword("$2a$10$hash");
+        user.setEmail("alice@korera.test");
+        user.setRole(Role.USER);
+        user.setTimeCreated(now);
+        Resource resource = new Resource();
+        resource.setResourceId(10);
+        resource.setResourceName("Steel");
+        resource.setResourceCode("ST");
+        Column column = new Column();
+        column.setColumnId(20);
+        column.setContent("Weight");
+        column.setResource(resource);
+        resource.setColumns(List.of(column));
+        Project project = new Project();
+        project.setProjectId(30);
+        project.setProjectName("Tower");
+        project.setUser(user);
+        ProjectResource link = new ProjectResource();
+        link.setProjectResourceId(40);
+        link.setProject(project);
+        link.setResource(resource);
+        project.setProjectResource(List.of(link));
+        resource.setProjectResources(List.of(link));
+        user.setProjects(List.of(project));
+        return user;
+    }
+}
@@ -0,0 +1,148 @@
+package com.itlize.korera.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Two embedded databases stand in for the primary and the replica, each knows which one it is
+class ReplicaRoutingDataSourceTest {
+
+    EmbeddedDatabase primary;
+    EmbeddedDatabase replica;
+    EmbeddedDatabase secondReplica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        secondReplica = database("second-replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+        primary.shutdown();
+        replica.shutdown();
+        secondReplica.shutdown();
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0");
+
+        assertEquals("primary", whoAmI(routing));
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0");
+        routing.checkReplicas();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("replica", whoAmI(routing));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 30");
+        routing.checkReplicas();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", whoAmI(routing));
+    }
+
+    @Test
+    void replicaWithoutReplicationStatusFallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0 FROM whoami WHERE 1 = 0");
+        routing.checkReplicas();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", whoAmI(routing));
+    }
+
+    @Test
+    void readAfterReadWriteStaysOnPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0");
+        routing.checkReplicas();
+        assertEquals("primary", whoAmI(routing));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", whoAmI(routing));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary,
+                List.of(new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable")),
+                "SELECT 0", Duration.ofSeconds(5));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", whoAmI(routing));
+    }
+
+    @Test
+    void readsOfOneRequestStayOnOneReplica() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica, secondReplica),
+                "SELECT 0", Duration.ofSeconds(5));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        String first = whoAmI(routing);
+        assertEquals(first, whoAmI(routing));
+        assertEquals(first, whoAmI(routing));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertNotEquals(first, whoAmI(routing));
+    }
+
+    @Test
+    void expiredPinIsRemovedFromTheThread() throws InterruptedException {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+                "SELECT 0", Duration.ofMillis(100));
+        assertEquals("primary", whoAmI(routing));
+        ThreadLocal<?> pinnedUntil = (ThreadLocal<?>) ReflectionTestUtils.getField(routing, "pinnedUntil");
+        assertNotNull(pinnedUntil.get());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", whoAmI(routing));
+        Thread.sleep(150);
+        assertEquals("replica", whoAmI(routing));
+        assertNull(pinnedUntil.get());
+    }
+
+    private ReplicaRoutingDataSource routing(String lagQuery) {
+        return new ReplicaRoutingDataSource(primary, List.of(replica), lagQuery, Duration.ofSeconds(5));
+    }
+
+    private static String whoAmI(ReplicaRoutingDataSource routing) {
+        return new JdbcTemplate(new LazyConnectionDataSourceProxy(routing))
+                .queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name)
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE whoami (name VARCHAR(20))");
+        new JdbcTemplate(database).update("INSERT INTO whoami VALUES (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,182 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.config.AsyncEndpoints;
+import com.itlize.korera.config.AsyncExecutionProperties;
+import com.itlize.korera.config.AsyncRequestMappingHandlerAdapter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.request.async.WebAsyncManagerIntegrationFilter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//Controller calls through AsyncRequestMappingHandlerAdapter on a MockMvc with the endpoint executor
+class AsyncEndpointsTest {
+
+    //Holds the slow endpoint until the test lets it finish
+    static CountDownLatch release;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        release = new CountDownLatch(1);
+        executor.setCorePoolSize(4);
+        executor.setThreadNamePrefix("async-endpoint-");
+        executor.initialize();
+        AsyncExecutionProperties properties = new AsyncExecutionProperties();
+        properties.getEndpoints().put("AsyncController.slow", endpoint(1, Duration.ofSeconds(30)));
+        properties.getEndpoints().put("AsyncController.sleepy", endpoint(10, Duration.ofMillis(100)));
+        AsyncEndpoints asyncEndpoints = new AsyncEndpoints(executor, properties, meterRegistry);
+        context.setServletContext(new MockServletContext());
+        context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.registerSingleton("asyncEndpoints", asyncEndpoints));
+        context.register(WebConfig.class, AsyncController.class);
+        context.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(new WebAsyncManagerIntegrationFilter()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        SecurityContextHolder.clearContext();
+        context.close();
+        executor.shutdown();
+    }
+
+    @Test
+    void responseEntityEndpointRunsOnTheExecutor() throws Exception {
+        MvcResult result = mockMvc.perform(get("/async/who")).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Thread", org.hamcrest.Matchers.startsWith("async-endpoint-")));
+    }
+
+    @Test
+    void otherReturnTypesStayOnTheRequestThread() throws Exception {
+        mockMvc.perform(get("/async/plain"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(content().string(Thread.currentThread().getName()));
+    }
+
+    @Test
+    void requestAttributesAndSecurityContextReachTheExecutorThread() throws Exception {
+        Authentication alice = new TestingAuthenticationToken("alice", null, "USER");
+        SecurityContextHolder.getContext().setAuthentication(alice);
+
+        MvcResult result = mockMvc.perform(get("/async/who").requestAttr("marker", "request-1"))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("alice request-1"));
+    }
+
+    @Test
+    void callsBeyondMaxPendingAreAnswered503() throws Exception {
+        MvcResult first = mockMvc.perform(get("/async/slow")).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(get("/async/slow")).andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/async/who")).andExpect(request().asyncStarted());
+
+        release.countDown();
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk()).andExpect(content().string("released"));
+        assertEquals(1, meterRegistry.counter("korera.async.rejected", "endpoint", "AsyncController.slow").count());
+        mockMvc.perform(get("/async/slow")).andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void timedOutCallIsAnswered503() throws Exception {
+        MvcResult result = mockMvc.perform(get("/async/sleepy")).andExpect(request().asyncStarted()).andReturn();
+        assertEquals(100, result.getRequest().getAsyncContext().getTimeout());
+
+        //The mock async context never times out on its own
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+        assertEquals(1, meterRegistry.counter("korera.async.timeouts", "endpoint", "AsyncController.sleepy").count());
+    }
+
+    private static AsyncExecutionProperties.Endpoint endpoint(int maxPending, Duration timeout) {
+        AsyncExecutionProperties.Endpoint endpoint = new AsyncExecutionProperties.Endpoint();
+        endpoint.setMaxPending(maxPending);
+        endpoint.setTimeout(timeout);
+        return endpoint;
+    }
+
+    @Configuration
+    static class WebConfig extends WebMvcConfigurationSupport {
+        @Autowired
+        AsyncEndpoints asyncEndpoints;
+
+        @Override
+        protected RequestMappingHandlerAdapter createRequestMappingHandlerAdapter() {
+            return new AsyncRequestMappingHandlerAdapter(asyncEndpoints);
+        }
+    }
+
+    @RestController
+    static class AsyncController {
+
+        @GetMapping("/async/who")
+        public ResponseEntity<String> who() {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            Object marker = RequestContextHolder.currentRequestAttributes()
+                    .getAttribute("marker", RequestAttributes.SCOPE_REQUEST);
+            return ResponseEntity.ok().header("X-Thread", Thread.currentThread().getName())
+                    .body((authentication == null ? null : authentication.getName()) + " " + marker);
+        }
+
+        @GetMapping("/async/plain")
+        public String plain() {
+            return Thread.currentThread().getName();
+        }
+
+        @GetMapping("/async/slow")
+        public ResponseEntity<String> slow() throws InterruptedException {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return ResponseEntity.ok("released");
+        }
+
+        @GetMapping("/async/sleepy")
+        public ResponseEntity<String> sleepy() throws InterruptedException {
+            Thread.sleep(1000);
+            return ResponseEntity.ok("too late");
+        }
+    }
+}
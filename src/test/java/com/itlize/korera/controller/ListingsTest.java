@@ -0,0 +1,93 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.repository.TableVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//The 304 path of listing endpoints, against an embedded H2 database
+class ListingsTest {
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+    TableVersions tableVersions;
+    AtomicInteger listings = new AtomicInteger();
+    Supplier<List<Integer>> listing = () -> {
+        listings.incrementAndGet();
+        return jdbcTemplate.queryForList("SELECT resource_id FROM resource", Integer.class);
+    };
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("listings").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE resource (resource_id INT PRIMARY KEY, time_updated TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO resource VALUES (1, CURRENT_TIMESTAMP)");
+        tableVersions = new TableVersions(jdbcTemplate, new DelegatingDataSource(database), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void firstRequestGetsTheListingAndItsEtag() {
+        ResponseEntity<?> response = get(null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(1), response.getBody());
+        assertEquals(tableVersions.etag("resources", TableVersions.RESOURCE), response.getHeaders().getETag());
+        assertEquals(1, listings.get());
+    }
+
+    @Test
+    void currentEtagIsAnsweredWithoutTheListing() {
+        String etag = get(null).getHeaders().getETag();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, get(etag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, get("\"other\", W/" + etag).getStatusCode());
+        assertEquals(etag, get(etag).getHeaders().getETag());
+        assertEquals(1, listings.get());
+    }
+
+    @Test
+    void committedChangeSendsTheListingAgain() {
+        String etag = get(null).getHeaders().getETag();
+        jdbcTemplate.update("INSERT INTO resource VALUES (2, CURRENT_TIMESTAMP)");
+        tableVersions.invalidateAfterCommit(TableVersions.RESOURCE);
+
+        ResponseEntity<?> response = get(etag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(1, 2), response.getBody());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, get(response.getHeaders().getETag()).getStatusCode());
+    }
+
+    private ResponseEntity<?> get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resource/getresources");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return Listings.respond(tableVersions, new ServletWebRequest(request, new MockHttpServletResponse()),
+                "resources", listing, TableVersions.RESOURCE);
+    }
+}
@@ -0,0 +1,113 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.model.Role;
+import com.itlize.korera.model.User;
+import com.itlize.korera.service.UserService;
+import com.itlize.korera.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Runs with -Dkorera.benchmark=true only, logins per second of the former and the current login pipeline
+@SpringBootTest
+@EnabledIfSystemProperty(named = "korera.benchmark", matches = "true")
+@Slf4j // logs
+class LoginBenchmarkTest {
+
+    static final String USERNAME = "benchmark-login";
+    static final String PASSWORD = "benchmark-password";
+    static final int THREADS = 8;
+    static final long SECONDS = 10;
+
+    @Autowired
+    AuthenticationManager authenticationManager;
+    @Autowired
+    UserDetailsService userDetailsService;
+    @Autowired
+    UserService userService;
+    @Autowired
+    JwtUtil jwtUtil;
+
+    @Test
+    void loginsPerSecond() throws Exception {
+        if (!userService.usernameExists(USERNAME)) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword(PASSWORD);
+            user.setEmail(USERNAME + "@korera.test");
+            user.setFirstName("Benchmark");
+            user.setLastName("Login");
+            user.setRole(Role.USER);
+            userService.saveUser(user);
+        }
+        try {
+            //Authenticate, load the user twice more and sign with a key decoded for every token
+            double legacy = run(() -> {
+                authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+                UserDetails userDetails = userDetailsService.loadUserByUsername(USERNAME);
+                userService.findByUsername(USERNAME);
+                return Jwts.builder().setClaims(new HashMap<>()).setSubject(userDetails.getUsername())
+                        .setIssuedAt(new Date()).setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                        .signWith(SignatureAlgorithm.HS256, "secret").compact();
+            });
+            double current = run(() -> {
+                Authentication authentication = authenticationManager
+                        .authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+                return jwtUtil.generateToken((UserDetails) authentication.getPrincipal());
+            });
+            log.info("Logins per second, legacy pipeline:  " + Math.round(legacy));
+            log.info("Logins per second, current pipeline: " + Math.round(current));
+            assertTrue(current > legacy);
+        } finally {
+            userService.deleteByUsername(USERNAME);
+        }
+    }
+
+    private interface Login {
+        String login() throws Exception;
+    }
+
+    //Logins per second over SECONDS with THREADS concurrent clients
+    private static double run(Login login) throws Exception {
+        login.login();
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        List<Future<Integer>> counts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            counts.add(clients.submit(() -> {
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    assertNotNull(login.login());
+                    count++;
+                }
+                return count;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> count : counts) {
+            total += count.get();
+        }
+        clients.shutdown();
+        return total / (double) SECONDS;
+    }
+}
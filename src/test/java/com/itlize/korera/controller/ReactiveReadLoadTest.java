@@ -0,0 +1,195 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.service.ResourceService;
+import com.itlize.korera.service.serviceimpl.BulkDeleter;
+import com.itlize.korera.util.JwtUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+import org.apache.catalina.connector.Connector;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Runs with -Dkorera.benchmark=true only, serves the resource listing to many slow clients at once from the
+//blocking and from the reactive controller and compares the request threads and database connections
+//they hold: JDBC connections from the Hikari pool and R2DBC connections from the reactive pool.
+//Unverified: it has not been run against MySQL yet, its thresholds are expectations, not measurements.
+//The SQL of ReactiveReadRepository is covered by ReactiveReadRepositoryTest on H2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "korera.benchmark", matches = "true")
+@Slf4j // logs
+class ReactiveReadLoadTest {
+
+    static final int ROWS = 2000;
+    static final int CLIENTS = 500;
+    //Every client reads CHUNK bytes per PAUSE_MILLIS
+    static final int CHUNK = 8192;
+    static final long PAUSE_MILLIS = 20;
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    ResourceService resourceService;
+    @Autowired
+    BulkDeleter bulkDeleter;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    HikariDataSource primaryDataSource;
+    @Autowired
+    ConnectionFactory connectionFactory;
+    @Autowired
+    ServletWebServerApplicationContext webServerContext;
+    @Autowired
+    JwtUtil jwtUtil;
+
+    @Test
+    void slowClientsBlockingVsReactive() throws Exception {
+        List<Resource> seeded = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Resource resource = new Resource();
+            resource.setResourceName("load-resource-" + i);
+            resource.setResourceCode("LOAD " + i);
+            seeded.add(resource);
+        }
+        resourceService.saveResources(seeded);
+        String token = jwtUtil.generateToken(new User("load-test", "",
+                Collections.singletonList(new SimpleGrantedAuthority("USER"))));
+        try {
+            Result blocking = run("/korera/resource/getresources", token);
+            Result reactive = run("/korera/reactive/resource/getresources", token);
+            log.info("Blocking: " + blocking);
+            log.info("Reactive: " + reactive);
+            assertEquals(CLIENTS, reactive.completed);
+            assertTrue(blocking.peakJdbcConnections > 0, "the blocking listing used no JDBC connection");
+            assertTrue(reactive.peakR2dbcConnections > 0, "the reactive listing used no R2DBC connection");
+            assertTrue(reactive.peakConnections() <= blocking.peakConnections());
+            assertTrue(reactive.peakBusyWorkers <= blocking.peakBusyWorkers);
+        } finally {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> bulkDeleter
+                    .deleteResources(seeded.stream().map(Resource::getResourceId).collect(Collectors.toList())));
+        }
+    }
+
+    private Result run(String path, String token) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger peakJdbc = new AtomicInteger();
+        AtomicInteger peakR2dbc = new AtomicInteger();
+        AtomicInteger peakBusyWorkers = new AtomicInteger();
+        PoolMetrics r2dbcMetrics = ((ConnectionPool) connectionFactory).getMetrics()
+                .orElseThrow(() -> new IllegalStateException("R2DBC pool metrics are not enabled"));
+        Executor tomcatExecutor = requestExecutor();
+        //Samples the JDBC and R2DBC connections in use and the Tomcat worker threads busy with a request
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakJdbc.accumulateAndGet(primaryDataSource.getHikariPoolMXBean().getActiveConnections(), Math::max);
+                peakR2dbc.accumulateAndGet(r2dbcMetrics.acquiredSize(), Math::max);
+                if (tomcatExecutor instanceof ThreadPoolExecutor) {
+                    peakBusyWorkers.accumulateAndGet(
+                            ((ThreadPoolExecutor) tomcatExecutor).getActiveCount(), Math::max);
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+        long start = System.nanoTime();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            results.add(clients.submit(() -> {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+                connection.setReadTimeout(60000);
+                try (InputStream body = connection.getInputStream()) {
+                    byte[] buffer = new byte[CHUNK];
+                    while (body.read(buffer) >= 0) {
+                        Thread.sleep(PAUSE_MILLIS);
+                    }
+                }
+                return connection.getResponseCode() == 200;
+            }));
+        }
+        int completed = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) {
+                    completed++;
+                }
+            } catch (Exception e) {
+                //Timed out or refused, counted as not completed
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        running.set(false);
+        sampler.join();
+        clients.shutdown();
+        return new Result(completed, millis, peakJdbc.get(), peakR2dbc.get(), peakBusyWorkers.get());
+    }
+
+    //Tomcat's own request thread pool, its active count is the number of threads inside a request
+    private Executor requestExecutor() {
+        Connector connector = ((TomcatWebServer) webServerContext.getWebServer()).getTomcat().getConnector();
+        return connector.getProtocolHandler().getExecutor();
+    }
+
+    private static class Result {
+        final int completed;
+        final long millis;
+        final int peakJdbcConnections;
+        final int peakR2dbcConnections;
+        final int peakBusyWorkers;
+
+        Result(int completed, long millis, int peakJdbcConnections, int peakR2dbcConnections, int peakBusyWorkers) {
+            this.completed = completed;
+            this.millis = millis;
+            this.peakJdbcConnections = peakJdbcConnections;
+            this.peakR2dbcConnections = peakR2dbcConnections;
+            this.peakBusyWorkers = peakBusyWorkers;
+        }
+
+        int peakConnections() {
+            return peakJdbcConnections + peakR2dbcConnections;
+        }
+
+        @Override
+        public String toString() {
+            return completed + "/" + CLIENTS + " clients served in " + millis + " ms, peak " + peakJdbcConnections
+                    + " JDBC and " + peakR2dbcConnections + " R2DBC connections, " + peakBusyWorkers
+                    + " busy Tomcat worker threads";
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.itlize.korera.controller;
+
+import com.itlize.korera.security.RefreshTokenService;
+import com.itlize.korera.security.TokenRevocationStore;
+import com.itlize.korera.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+//Logout with valid, expired and invalid access tokens
+class UserControllerLogoutTest {
+
+    JwtUtil jwtUtil = new JwtUtil();
+    TokenRevocationStore tokenRevocationStore = mock(TokenRevocationStore.class);
+    RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    UserController controller = new UserController();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "jwtTokenUtil", jwtUtil);
+        ReflectionTestUtils.setField(controller, "tokenRevocationStore", tokenRevocationStore);
+        ReflectionTestUtils.setField(controller, "refreshTokenService", refreshTokenService);
+    }
+
+    @Test
+    void validTokenIsRevokedUntilItExpires() {
+        String token = jwtUtil.generateToken(new User("alice", "", List.of(new SimpleGrantedAuthority("USER"))));
+        Claims claims = jwtUtil.extractAllClaims(token);
+
+        ResponseEntity<?> response = controller.logout("Bearer " + token, "refresh");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tokenRevocationStore).revokeToken(claims.getId(), claims.getExpiration().getTime());
+        verify(refreshTokenService).revoke("refresh");
+    }
+
+    @Test
+    void expiredTokenLogsOutWithoutRevoking() {
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder().setId("jti-1").setSubject("alice")
+                .setIssuedAt(new Date(now - 20_000)).setExpiration(new Date(now - 10_000))
+                .signWith(SignatureAlgorithm.HS256, "secret").compact();
+
+        ResponseEntity<?> response = controller.logout("Bearer " + token, "refresh");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("User \"alice\" was successfully logged out.", response.getBody());
+        verify(tokenRevocationStore, never()).revokeToken(any(), anyLong());
+        verify(refreshTokenService).revoke("refresh");
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsUnauthorized() {
+        String token = Jwts.builder().setId("jti-1").setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 10_000))
+                .signWith(SignatureAlgorithm.HS256, "b3RoZXI=").compact();
+
+        assertUnauthorized("Bearer " + token);
+    }
+
+    @Test
+    void malformedTokenIsUnauthorized() {
+        assertUnauthorized("Bearer not-a-token");
+        assertUnauthorized("Bearer ");
+    }
+
+    @Test
+    void missingBearerIsBadRequest() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> controller.logout("Basic YWxpY2U6cw==", null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+
+    private void assertUnauthorized(String authorization) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> controller.logout(authorization, "refresh"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatus());
+        verifyNoInteractions(tokenRevocationStore, refreshTokenService);
+    }
+}
@@ -0,0 +1,161 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.model.ProjectResource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Both copy paths against H2 in MySQL mode with the real mapping, so the ids come from BlockIdGenerator
+//with blocks of 5 and the MySQL path reserves its range from the same hibernate_sequence table
+class ProjectCloneRepositoryTest {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 9, 30);
+
+    EmbeddedDatabase database;
+    LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    EntityManager entityManager;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    ProjectCloneRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("clone;MODE=MySQL").build();
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(database);
+        entityManagerFactory.setPackagesToScan("com.itlize.korera.model");
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create",
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "korera.id.block-size.default", "5"));
+        entityManagerFactory.afterPropertiesSet();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject());
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory.getObject());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = new ProjectCloneRepository(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+
+        jdbcTemplate.update("INSERT INTO user (user_id, username, email, password, first_name, last_name)"
+                + " VALUES (1, 'alice', 'alice@korera.test', 'x', 'Alice', 'A')");
+        jdbcTemplate.update("INSERT INTO project (project_id, project_name, user_id) VALUES (1, 'Tower', 1),"
+                + " (2, 'Tower copy', 1), (3, 'Empty', 1)");
+        jdbcTemplate.update("INSERT INTO resource (resource_id, resource_name, resource_code) VALUES"
+                + " (1, 'Steel', 'ST'), (2, 'Concrete', 'CO'), (3, 'Glass', 'GL')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        entityManagerFactory.destroy();
+        database.shutdown();
+    }
+
+    @Test
+    void copyStatementTakesAContiguousRangeFromTheSequenceTable() {
+        link(1, 3, 1, 2);
+        long next = nextVal();
+
+        int copied = copyLinks(true, 1, 2);
+
+        assertEquals(3, copied);
+        assertEquals(next + 3, nextVal());
+        assertEquals(List.of(next, next + 1, next + 2), linkIds(2));
+        //Ordered like the source links
+        assertEquals(List.of(3, 1, 2), jdbcTemplate.queryForList(
+                "SELECT resource_id FROM project_resource WHERE project_id = 2 ORDER BY project_resource_id",
+                Integer.class));
+    }
+
+    @Test
+    void copiedIdsNeverCollideWithGeneratedIds() {
+        //The generator holds the rest of its block in memory while the copy reserves the next range
+        link(1, 1, 2, 3);
+        Set<Long> ids = new HashSet<>(linkIds(1));
+
+        copyLinks(true, 1, 2);
+        for (long id : linkIds(2)) {
+            assertTrue(ids.add(id), "copied id " + id + " was taken already");
+        }
+        for (int i = 0; i < 12; i++) {
+            long id = generateId();
+            assertTrue(ids.add(id), "generated id " + id + " was taken already");
+        }
+    }
+
+    @Test
+    void copyOfAProjectWithoutLinksReservesNothing() {
+        long next = nextVal();
+
+        assertEquals(0, copyLinks(true, 3, 2));
+        assertEquals(next, nextVal());
+    }
+
+    @Test
+    void otherDatabasesCopyWithGeneratedIds() {
+        link(1, 2, 3);
+
+        assertEquals(2, copyLinks(false, 1, 2));
+
+        List<Long> copies = linkIds(2);
+        assertEquals(2, copies.size());
+        assertTrue(copies.stream().noneMatch(linkIds(1)::contains));
+        assertEquals(List.of(2, 3), jdbcTemplate.queryForList(
+                "SELECT resource_id FROM project_resource WHERE project_id = 2 ORDER BY project_resource_id",
+                Integer.class));
+    }
+
+    private int copyLinks(boolean mysql, int source, int target) {
+        ReflectionTestUtils.setField(repository, "mysql", mysql);
+        return transactionTemplate.execute(status -> repository.copyLinks(source, target, NOW));
+    }
+
+    //Links the project to the resources with ids from the ProjectResource generator
+    private void link(int projectId, int... resourceIds) {
+        for (int resourceId : resourceIds) {
+            jdbcTemplate.update("INSERT INTO project_resource (project_resource_id, project_id, resource_id)"
+                    + " VALUES (?, ?, ?)", generateId(), projectId, resourceId);
+        }
+    }
+
+    private long generateId() {
+        return transactionTemplate.execute(status -> {
+            IdentifierGenerator generator = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getMetamodel().entityPersister(ProjectResource.class).getIdentifierGenerator();
+            return ((Number) generator.generate(entityManager.unwrap(SharedSessionContractImplementor.class), null))
+                    .longValue();
+        });
+    }
+
+    private long nextVal() {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM hibernate_sequence", Long.class);
+    }
+
+    private List<Long> linkIds(int projectId) {
+        return new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT project_resource_id FROM project_resource WHERE project_id = ? ORDER BY project_resource_id",
+                Long.class, projectId));
+    }
+}
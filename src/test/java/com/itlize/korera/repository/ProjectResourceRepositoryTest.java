@@ -1,5 +1,6 @@
 package com.itlize.korera.repository;
 
+import com.itlize.korera.dto.ProjectResourceRow;
 import com.itlize.korera.model.Project;
 import com.itlize.korera.model.ProjectResource;
 import com.itlize.korera.model.Resource;
@@ -11,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,6 +67,19 @@ public class ProjectResourceRepositoryTest {
         Assert.assertTrue(doesProjectResourceExists);
     }
 
+    //Read flat rows of the resources used by a project
+    @Test
+    public void findRowsByProjectNameTest(){
+        Integer projectId = 26;
+        String projectName = projectRepository.getById(projectId).getProjectName();
+
+        List<ProjectResourceRow> rows = projectResourceRepository.findRowsByProjectName(projectName);
+
+        for (ProjectResourceRow row : rows) {
+            Assert.assertEquals(projectId, row.getProjectId());
+            Assert.assertEquals(projectName, row.getProjectName());
+        }
+    }
 
     //Delete Resource
     @Test
@@ -0,0 +1,177 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.dto.ColumnView;
+import com.itlize.korera.dto.ProjectView;
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.model.ColumnType;
+import io.r2dbc.spi.Row;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+//The SQL and row mapping of ReactiveReadRepository on H2 in MySQL mode, no R2DBC driver for H2 is on the
+//classpath, so the statements run over JDBC and the rows reach the mappers through an r2dbc Row adapter
+class ReactiveReadRepositoryTest {
+
+    static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 1, 9, 30, 15);
+    static final LocalDateTime UPDATED = LocalDateTime.of(2024, 3, 2, 17, 45, 5);
+
+    EmbeddedDatabase database;
+    NamedParameterJdbcTemplate jdbcTemplate;
+    ReactiveReadRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+                .setName("reactive;MODE=MySQL").build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE `user` (user_id INT PRIMARY KEY, username VARCHAR(255),"
+                + " time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbc.execute("CREATE TABLE resource (resource_id INT PRIMARY KEY, resource_name VARCHAR(255),"
+                + " resource_code VARCHAR(255), time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbc.execute("CREATE TABLE project (project_id INT PRIMARY KEY, project_name VARCHAR(255), user_id INT,"
+                + " time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbc.execute("CREATE TABLE project_resource (project_resource_id INT PRIMARY KEY, project_id INT,"
+                + " resource_id INT, time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbc.execute("CREATE TABLE columns (column_id INT PRIMARY KEY, content VARCHAR(255), column_type VARCHAR(255),"
+                + " resource_id INT, time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbc.update("INSERT INTO `user` VALUES (1, 'alice', ?, ?), (2, 'bob', ?, ?)", CREATED, UPDATED, CREATED, UPDATED);
+        jdbc.update("INSERT INTO resource VALUES (10, 'Steel', 'ST', ?, ?), (11, 'Concrete', 'CO', ?, ?),"
+                + " (12, 'Glass', 'GL', ?, ?)", CREATED, UPDATED, CREATED, UPDATED, CREATED, UPDATED);
+        jdbc.update("INSERT INTO project VALUES (20, 'Tower', 1, ?, ?), (21, 'Bridge', 2, ?, ?),"
+                + " (22, 'Annex', 1, ?, ?)", CREATED, UPDATED, CREATED, UPDATED, CREATED, UPDATED);
+        //Linked out of id order, the listing keeps the order of the links
+        jdbc.update("INSERT INTO project_resource VALUES (30, 20, 12, ?, ?), (31, 20, 10, ?, ?), (32, 21, 11, ?, ?)",
+                CREATED, UPDATED, CREATED, UPDATED, CREATED, UPDATED);
+        jdbc.update("INSERT INTO columns VALUES (40, 'Weight', 'NUMBER', 10, ?, ?), (41, 'Notes', NULL, 10, ?, ?),"
+                + " (42, 'Supplier', 'TEXT', 11, ?, ?)", CREATED, UPDATED, CREATED, UPDATED, CREATED, UPDATED);
+        jdbcTemplate = new NamedParameterJdbcTemplate(database);
+        repository = new ReactiveReadRepository(databaseClient());
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void findAllResourcesMapsEveryColumn() {
+        List<ResourceView> resources = repository.findAllResources().collectList().block();
+
+        assertEquals(List.of(10, 11, 12), ids(resources, ResourceView::getResourceId));
+        ResourceView steel = resources.get(0);
+        assertEquals("Steel", steel.getResourceName());
+        assertEquals("ST", steel.getResourceCode());
+        assertEquals(CREATED, steel.getTimeCreated());
+        assertEquals(UPDATED, steel.getTimeUpdated());
+    }
+
+    @Test
+    void findResourcesByProjectNameFollowsTheLinks() {
+        List<ResourceView> resources = repository.findResourcesByProjectName("Tower").collectList().block();
+
+        assertEquals(List.of(12, 10), ids(resources, ResourceView::getResourceId));
+        assertEquals("Glass", resources.get(0).getResourceName());
+        assertTrue(repository.findResourcesByProjectName("Unknown").collectList().block().isEmpty());
+    }
+
+    @Test
+    void findProjectsByUsernameJoinsTheUserTable() {
+        List<ProjectView> projects = repository.findProjectsByUsername("alice").collectList().block();
+
+        assertEquals(List.of(20, 22), ids(projects, ProjectView::getProjectId));
+        ProjectView tower = projects.get(0);
+        assertEquals("Tower", tower.getProjectName());
+        assertEquals("alice", tower.getUsername());
+        assertEquals(CREATED, tower.getTimeCreated());
+        assertEquals(UPDATED, tower.getTimeUpdated());
+    }
+
+    @Test
+    void findColumnsByResourceNameMapsTheColumnType() {
+        List<ColumnView> columns = repository.findColumnsByResourceName("Steel").collectList().block();
+
+        assertEquals(List.of(40, 41), ids(columns, ColumnView::getColumnId));
+        ColumnView weight = columns.get(0);
+        assertEquals("Weight", weight.getContent());
+        assertEquals(ColumnType.NUMBER, weight.getColumnType());
+        assertEquals(10, weight.getResourceId());
+        assertEquals("Steel", weight.getResourceName());
+        assertEquals(CREATED, weight.getTimeCreated());
+        assertNull(columns.get(1).getColumnType());
+    }
+
+    private static <T> List<Integer> ids(List<T> views, java.util.function.Function<T, Integer> id) {
+        return views.stream().map(id).collect(java.util.stream.Collectors.toList());
+    }
+
+    //Runs the statement with its bound parameters over JDBC and hands each row to the repository's mapper
+    @SuppressWarnings("unchecked")
+    private DatabaseClient databaseClient() {
+        DatabaseClient client = mock(DatabaseClient.class);
+        when(client.sql(anyString())).thenAnswer(sql -> {
+            Map<String, Object> parameters = new HashMap<>();
+            DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+            when(spec.bind(anyString(), any())).thenAnswer(bind -> {
+                parameters.put(bind.getArgument(0), bind.getArgument(1));
+                return spec;
+            });
+            when(spec.map(any(BiFunction.class))).thenAnswer(map -> {
+                BiFunction<Row, Object, Object> mapper = map.getArgument(0);
+                RowsFetchSpec<Object> rows = mock(RowsFetchSpec.class);
+                when(rows.all()).thenAnswer(all -> Flux.fromIterable(jdbcTemplate.query(sql.<String>getArgument(0),
+                        parameters, (resultSet, rowNum) -> mapper.apply(new ResultSetRow(resultSet), null))));
+                return rows;
+            });
+            return spec;
+        });
+        return client;
+    }
+
+    //Reads by column label with the requested type, as the r2dbc-mysql driver does
+    private static class ResultSetRow implements Row {
+        private final ResultSet resultSet;
+
+        ResultSetRow(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public <T> T get(int index, Class<T> type) {
+            try {
+                return resultSet.getObject(index + 1, type);
+            } catch (SQLException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public <T> T get(String name, Class<T> type) {
+            try {
+                return resultSet.getObject(name, type);
+            } catch (SQLException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+}
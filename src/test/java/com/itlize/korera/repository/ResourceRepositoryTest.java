@@ -6,9 +6,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,6 +59,21 @@ public class ResourceRepositoryTest {
         Assert.assertNotNull(resource);
     }
 
+    //Read Resources page by page
+    @Test
+    public void findResourcesPageByNameTest(){
+        List<Resource> firstPage = resourceRepository.findAllByOrderByResourceNameAsc(PageRequest.of(0, 2));
+        Assert.assertFalse(firstPage.isEmpty());
+
+        String lastName = firstPage.get(firstPage.size() - 1).getResourceName();
+        List<Resource> nextPage = resourceRepository
+                .findByResourceNameGreaterThanOrderByResourceNameAsc(lastName, PageRequest.of(0, 2));
+
+        for (Resource resource : nextPage) {
+            Assert.assertTrue(resource.getResourceName().compareTo(lastName) > 0);
+        }
+    }
+
     //Update Resource
     @Test
     public void updateResourceByIdTest(){
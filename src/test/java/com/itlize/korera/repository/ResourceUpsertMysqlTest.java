@@ -0,0 +1,84 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.model.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//INSERT ... ON DUPLICATE KEY UPDATE against the configured MySQL database, rolled back after each test
+@SpringBootTest
+@Transactional
+class ResourceUpsertMysqlTest {
+
+    @Autowired
+    ResourceUpsertRepository resourceUpsertRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    String prefix;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "upsert-test-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    @Test
+    void existingCodeKeepsItsIdAndCreationTime() {
+        Resource existing = resource("Concrete", "03");
+        resourceUpsertRepository.upsert(List.of(existing));
+        Resource renamed = resource("Cast concrete", "03");
+        renamed.setTimeCreated(existing.getTimeCreated().plusDays(1));
+
+        resourceUpsertRepository.upsert(List.of(renamed));
+
+        Map<String, Object> row = row("03");
+        assertEquals(existing.getResourceId(), ((Number) row.get("resource_id")).intValue());
+        assertEquals(prefix + "Cast concrete", row.get("resource_name"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resource WHERE resource_code = ?"
+                + " AND time_created = ?", Integer.class, prefix + "03", Timestamp.valueOf(existing.getTimeCreated())));
+        assertEquals(1, count());
+    }
+
+    @Test
+    void nameOfAnotherCodeLeavesThatRowAlone() {
+        Resource other = resource("Concrete", "03");
+        resourceUpsertRepository.upsert(List.of(other));
+        Map<String, Object> before = row("03");
+
+        resourceUpsertRepository.upsert(List.of(resource("Concrete", "04")));
+
+        assertEquals(before, row("03"));
+        assertEquals(1, count());
+    }
+
+    private Map<String, Object> row(String code) {
+        return jdbcTemplate.queryForMap("SELECT resource_id, resource_name, time_created, time_updated FROM resource"
+                + " WHERE resource_code = ?", prefix + code);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resource WHERE resource_code LIKE ?",
+                Integer.class, prefix + "%");
+    }
+
+    private Resource resource(String name, String code) {
+        Resource resource = new Resource();
+        resource.setResourceName(prefix + name);
+        resource.setResourceCode(prefix + code);
+        resource.setTimeCreated(LocalDateTime.now().withNano(0));
+        resource.setTimeUpdated(resource.getTimeCreated());
+        resource.setResourceId(resourceUpsertRepository.nextId(resource));
+        return resource;
+    }
+}
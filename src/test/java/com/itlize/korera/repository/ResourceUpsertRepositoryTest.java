@@ -0,0 +1,133 @@
+package com.itlize.korera.repository;
+
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.model.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//The MERGE fallback used on databases other than MySQL, against an embedded H2 database.
+//The MySQL statement is covered by ResourceUpsertMysqlTest
+class ResourceUpsertRepositoryTest {
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("upsert").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE resource (resource_id INT PRIMARY KEY,"
+                + " resource_name VARCHAR(255) NOT NULL UNIQUE, resource_code VARCHAR(255) NOT NULL UNIQUE,"
+                + " time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO resource VALUES (1, 'Concrete', '03 00 00', NULL, NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void mergeInsertsNewCodesAndRenamesExistingOnes() {
+        ResourceUpsertRepository repository = new ResourceUpsertRepository(jdbcTemplate, 1000);
+
+        repository.upsert(List.of(resource(1, "Cast concrete", "03 00 00"), resource(2, "Masonry", "04 00 00")));
+
+        assertEquals("Cast concrete", nameOf("03 00 00"));
+        assertEquals("Masonry", nameOf("04 00 00"));
+        assertEquals(2, count());
+    }
+
+    @Test
+    void mergeKeepsTheIdAndCreationTimeOfExistingRows() {
+        ResourceUpsertRepository repository = new ResourceUpsertRepository(jdbcTemplate, 1000);
+
+        //A code inserted since it was read, the caller took it for a new row with a new id
+        repository.upsert(List.of(resource(7, "Cast concrete", "03 00 00")));
+
+        assertEquals(1, idOf("03 00 00"));
+        assertNull(jdbcTemplate.queryForObject("SELECT time_created FROM resource WHERE resource_code = '03 00 00'",
+                Object.class));
+        assertEquals("Cast concrete", nameOf("03 00 00"));
+    }
+
+    @Test
+    void mergeSkipsRowsWhoseNameBelongsToAnotherCode() {
+        ResourceUpsertRepository repository = new ResourceUpsertRepository(jdbcTemplate, 1000);
+
+        repository.upsert(List.of(resource(2, "Concrete", "04 00 00"), resource(3, "Metals", "05 00 00")));
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resource WHERE resource_code = '04 00 00'",
+                Integer.class));
+        assertEquals(1, idOf("03 00 00"));
+        assertEquals("Metals", nameOf("05 00 00"));
+    }
+
+    @Test
+    void mergeSplitsRowsIntoStatements() {
+        ResourceUpsertRepository repository = new ResourceUpsertRepository(jdbcTemplate, 2);
+
+        repository.upsert(List.of(resource(1, "Cast concrete", "03 00 00"),
+                resource(2, "Masonry", "04 00 00"), resource(3, "Metals", "05 00 00"),
+                resource(4, "Wood", "06 00 00"), resource(5, "Thermal", "07 00 00")));
+
+        assertEquals(5, count());
+        assertEquals("Cast concrete", nameOf("03 00 00"));
+        assertEquals("Thermal", nameOf("07 00 00"));
+    }
+
+    @Test
+    void mergeOfNothingWritesNothing() {
+        ResourceUpsertRepository repository = new ResourceUpsertRepository(jdbcTemplate, 1000);
+
+        repository.upsert(List.of());
+        assertEquals(1, count());
+    }
+
+    @Test
+    void writtenRowsAreReadBackByCode() {
+        ResourceUpsertRepository repository = new ResourceUpsertRepository(jdbcTemplate, 1000);
+        repository.upsert(List.of(resource(2, "Masonry", "04 00 00")));
+
+        List<ResourceView> rows = repository.findByCodesOrNames(List.of("03 00 00", "04 00 00", "05 00 00"),
+                List.of());
+
+        assertEquals(List.of("Concrete", "Masonry"), rows.stream().map(ResourceView::getResourceName).sorted()
+                .collect(Collectors.toList()));
+    }
+
+    private String nameOf(String code) {
+        return jdbcTemplate.queryForObject("SELECT resource_name FROM resource WHERE resource_code = ?",
+                String.class, code);
+    }
+
+    private int idOf(String code) {
+        return jdbcTemplate.queryForObject("SELECT resource_id FROM resource WHERE resource_code = ?",
+                Integer.class, code);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resource", Integer.class);
+    }
+
+    private static Resource resource(Integer id, String name, String code) {
+        Resource resource = new Resource();
+        resource.setResourceId(id);
+        resource.setResourceName(name);
+        resource.setResourceCode(code);
+        resource.setTimeCreated(LocalDateTime.now());
+        resource.setTimeUpdated(LocalDateTime.now());
+        return resource;
+    }
+}
@@ -0,0 +1,134 @@
+package com.itlize.korera.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Cached versions and their invalidation, against an embedded H2 database standing in for primary and replica
+class TableVersionsTest {
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    AtomicInteger primaryReads = new AtomicInteger();
+    Runnable duringPrimaryRead = () -> { };
+    TableVersions tableVersions;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("versions").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE resource (resource_id INT PRIMARY KEY, time_updated TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO resource VALUES (1, CURRENT_TIMESTAMP)");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        //A data source of its own, like the primary pool, so cached versions never join the current transaction
+        DelegatingDataSource primary = new DelegatingDataSource(database) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                primaryReads.incrementAndGet();
+                duringPrimaryRead.run();
+                return super.getConnection();
+            }
+        };
+        tableVersions = new TableVersions(jdbcTemplate, primary, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void cachedVersionIsReusedUntilInvalidated() {
+        String before = tableVersions.version(TableVersions.RESOURCE);
+        jdbcTemplate.update("INSERT INTO resource VALUES (2, CURRENT_TIMESTAMP)");
+
+        assertEquals(before, tableVersions.version(TableVersions.RESOURCE));
+        assertEquals(1, primaryReads.get());
+
+        tableVersions.invalidate(TableVersions.RESOURCE);
+
+        assertNotEquals(before, tableVersions.version(TableVersions.RESOURCE));
+        assertEquals(2, primaryReads.get());
+    }
+
+    @Test
+    void invalidationWaitsForTheCommit() {
+        String before = tableVersions.version(TableVersions.RESOURCE);
+        tableVersions.invalidate(TableVersions.RESOURCE);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO resource VALUES (2, CURRENT_TIMESTAMP)");
+            tableVersions.invalidateAfterCommit(TableVersions.RESOURCE);
+            //Another request reads and caches the version before the commit
+            assertEquals(before, tableVersions.version(TableVersions.RESOURCE));
+        });
+
+        assertNotEquals(before, tableVersions.version(TableVersions.RESOURCE));
+        assertEquals(3, primaryReads.get());
+    }
+
+    @Test
+    void rolledBackChangeKeepsTheVersion() {
+        String before = tableVersions.version(TableVersions.RESOURCE);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO resource VALUES (2, CURRENT_TIMESTAMP)");
+            tableVersions.invalidateAfterCommit(TableVersions.RESOURCE);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, tableVersions.version(TableVersions.RESOURCE));
+        assertEquals(1, primaryReads.get());
+    }
+
+    @Test
+    void readRacingAnInvalidationIsNotCached() {
+        duringPrimaryRead = () -> {
+            duringPrimaryRead = () -> { };
+            tableVersions.invalidate(TableVersions.RESOURCE);
+        };
+
+        tableVersions.version(TableVersions.RESOURCE);
+        tableVersions.version(TableVersions.RESOURCE);
+        tableVersions.version(TableVersions.RESOURCE);
+
+        assertEquals(2, primaryReads.get());
+    }
+
+    @Test
+    void snapshotTagsTheListingWithTheVersionsReadInItsTransaction() {
+        String cached = tableVersions.etag("resources", TableVersions.RESOURCE);
+        //Changed on another node, the cached version does not know yet
+        jdbcTemplate.update("INSERT INTO resource VALUES (2, CURRENT_TIMESTAMP)");
+
+        TableVersions.Snapshot<List<Integer>> snapshot = transactionTemplate.execute(status -> tableVersions.snapshot(
+                "resources", () -> jdbcTemplate.queryForList("SELECT resource_id FROM resource", Integer.class),
+                TableVersions.RESOURCE));
+
+        assertEquals(List.of(1, 2), snapshot.getBody());
+        assertNotEquals(cached, snapshot.getEtag());
+        tableVersions.invalidate(TableVersions.RESOURCE);
+        assertEquals(tableVersions.etag("resources", TableVersions.RESOURCE), snapshot.getEtag());
+    }
+
+    @Test
+    void unknownTableHasNoVersion() {
+        assertThrows(IllegalArgumentException.class, () -> tableVersions.version("resource; DROP TABLE user"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.itlize.korera.security;
+
+import com.itlize.korera.util.BloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Expiry runs on the store's own one-second ticker, so those tests wait for it
+class TokenRevocationStoreTest {
+
+    TokenRevocationStore store = new TokenRevocationStore(new SimpleMeterRegistry(), Duration.ofDays(7));
+
+    @AfterEach
+    void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    void revokedTokenStaysRevokedUntilItExpires() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        store.revokeToken("jti-1", now + 1500);
+
+        assertTrue(store.isRevoked("jti-1", "alice", now - 1000));
+        assertFalse(store.isRevoked("jti-2", "alice", now - 1000));
+        assertTrue(store.isRevoked("jti-1", null, now - 1000));
+
+        await(() -> !store.isRevoked("jti-1", "alice", now - 1000));
+        assertTrue(System.currentTimeMillis() >= now + 1500);
+    }
+
+    @Test
+    void alreadyExpiredTokenIsNotKept() {
+        long now = System.currentTimeMillis();
+        store.revokeToken("jti-1", now - 5000);
+
+        assertFalse(store.isRevoked("jti-1", "alice", now - 10_000));
+        assertTrue(revokedTokens().isEmpty());
+    }
+
+    @Test
+    void userCutoffComparesMillisecondsNotSeconds() {
+        store.revokeAllOf("alice");
+        long cutoff = userCutoffs().get("alice");
+
+        assertTrue(store.isRevoked("jti-1", "alice", cutoff - 999));
+        assertTrue(store.isRevoked("jti-1", "alice", cutoff));
+        //Issued in the same second as the change, but after it
+        assertFalse(store.isRevoked("jti-2", "alice", cutoff + 1));
+        assertFalse(store.isRevoked("jti-3", "bob", cutoff - 999));
+    }
+
+    @Test
+    void laterChangeMovesTheCutoffForward() throws InterruptedException {
+        store.revokeAllOf("alice");
+        long first = userCutoffs().get("alice");
+        Thread.sleep(5);
+        store.revokeAllOf("alice");
+
+        assertTrue(userCutoffs().get("alice") > first);
+        assertTrue(store.isRevoked(null, "alice", first + 1));
+    }
+
+    @Test
+    void globalCutoffRevokesEveryUsersEarlierTokens() {
+        long before = System.currentTimeMillis();
+        store.revokeAll();
+        long cutoff = (long) ReflectionTestUtils.getField(store, "globalCutoff");
+
+        assertTrue(store.isRevoked("jti-1", "alice", before));
+        assertTrue(store.isRevoked(null, null, cutoff));
+        assertFalse(store.isRevoked("jti-2", "bob", cutoff + 1));
+    }
+
+    @Test
+    void filterIsRebuiltWithoutExpiredRevocations() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        store.revokeToken("expiring", now + 1200);
+        store.revokeToken("live", now + 60_000);
+        BloomFilter before = bloomFilter();
+        assertTrue(before.mightContain('t', "expiring"));
+
+        await(() -> bloomFilter() != before);
+
+        assertFalse(revokedTokens().containsKey("expiring"));
+        assertFalse(bloomFilter().mightContain('t', "expiring"));
+        assertTrue(bloomFilter().mightContain('t', "live"));
+        assertTrue(store.isRevoked("live", "alice", now));
+    }
+
+    @Test
+    void filterGrowsBeyondItsCapacity() {
+        long expires = System.currentTimeMillis() + 60_000;
+        int capacity = bloomFilter().getCapacity();
+        for (int i = 0; i <= capacity; i++) {
+            store.revokeToken("jti-" + i, expires);
+        }
+
+        assertTrue(bloomFilter().getCapacity() > capacity);
+        for (int i = 0; i <= capacity; i++) {
+            assertTrue(store.isRevoked("jti-" + i, "alice", expires - 120_000));
+        }
+    }
+
+    private BloomFilter bloomFilter() {
+        return (BloomFilter) ReflectionTestUtils.getField(store, "bloomFilter");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> revokedTokens() {
+        return (Map<String, Long>) ReflectionTestUtils.getField(store, "revokedTokens");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> userCutoffs() {
+        return (Map<String, Long>) ReflectionTestUtils.getField(store, "userCutoffs");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Not expired after 5 seconds.");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.itlize.korera.service;
+
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.service.serviceimpl.BulkDeleter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Runs with -Dkorera.benchmark=true only, compares getResources against the former read-write loading
+@SpringBootTest
+@EnabledIfSystemProperty(named = "korera.benchmark", matches = "true")
+@Slf4j // logs
+class ResourceServiceBenchmarkTest {
+
+    static final int ROWS = 20000;
+    static final int WARMUP = 3;
+    static final int RUNS = 10;
+
+    @Autowired
+    ResourceService resourceService;
+    @Autowired
+    BulkDeleter bulkDeleter;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Test
+    void getResourcesReadOnlyVsReadWrite() {
+        List<Resource> seeded = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Resource resource = new Resource();
+            resource.setResourceName("benchmark-resource-" + i);
+            resource.setResourceCode("BM " + i);
+            seeded.add(resource);
+        }
+        resourceService.saveResources(seeded);
+        try {
+            //Same query as getResources, in a read-write transaction that snapshots and flushes
+            TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+            long[] legacy = measure(() -> readWrite.execute(status -> entityManager
+                    .createQuery("select r from Resource r", Resource.class).getResultList()));
+            long[] readOnly = measure(() -> resourceService.getResources());
+
+            log.info("getResources read-write: " + legacy[0] / RUNS / 1000 + " us, "
+                    + legacy[1] / RUNS / 1024 + " KiB allocated per call");
+            log.info("getResources read-only:  " + readOnly[0] / RUNS / 1000 + " us, "
+                    + readOnly[1] / RUNS / 1024 + " KiB allocated per call");
+            assertTrue(readOnly[1] < legacy[1]);
+        } finally {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> bulkDeleter
+                    .deleteResources(seeded.stream().map(Resource::getResourceId).collect(Collectors.toList())));
+        }
+    }
+
+    //Total nanoseconds and bytes allocated by this thread over RUNS calls, after WARMUP calls
+    private static long[] measure(Supplier<List<?>> call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            assertTrue(call.get().size() >= ROWS);
+        }
+        long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            call.get();
+        }
+        return new long[]{System.nanoTime() - start, threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes};
+    }
+}
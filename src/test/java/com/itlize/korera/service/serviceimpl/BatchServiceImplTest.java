@@ -0,0 +1,182 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itlize.korera.dto.BatchOperation;
+import com.itlize.korera.dto.BatchOperationResult;
+import com.itlize.korera.dto.BatchResult;
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.service.ColumnService;
+import com.itlize.korera.service.ProjectService;
+import com.itlize.korera.service.ResourceService;
+import com.itlize.korera.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+//Per-operation results of POST /batch when inserts only reach the database at a flush or at commit
+class BatchServiceImplTest {
+
+    //Resource names of the database: committed, flushed in the open transaction, and saved but not flushed
+    Set<String> committed = new HashSet<>();
+    Set<String> flushed = new HashSet<>();
+    List<String> saved = new ArrayList<>();
+    int transactions;
+
+    ResourceService resourceService = mock(ResourceService.class);
+    EntityManager entityManager = mock(EntityManager.class);
+    BatchServiceImpl batchService;
+
+    @BeforeEach
+    void setUp() {
+        when(resourceService.saveResource(any())).thenAnswer(invocation -> {
+            Resource resource = invocation.getArgument(0);
+            saved.add(resource.getResourceName());
+            return resource;
+        });
+        doAnswer(invocation -> {
+            flush();
+            return null;
+        }).when(entityManager).flush();
+        batchService = new BatchServiceImpl(mock(UserService.class), mock(ProjectService.class), resourceService,
+                mock(ColumnService.class), new ObjectMapper(), new Database(), 10000, 0, 50);
+        ReflectionTestUtils.setField(batchService, "entityManager", entityManager);
+    }
+
+    @Test
+    void batchWithoutFailuresIsCommittedWithoutExtraFlushes() {
+        BatchResult result = batchService.execute(List.of(create("Concrete"), create("Masonry")), null);
+
+        assertEquals(List.of(201, 201), statuses(result));
+        assertEquals(Set.of("Concrete", "Masonry"), committed);
+        verify(entityManager, never()).flush();
+    }
+
+    @Test
+    void duplicateFoundAtCommitIsPinnedOnItsOperation() {
+        committed.add("Masonry");
+
+        BatchResult result = batchService.execute(List.of(create("Concrete"), create("Masonry"), create("Metals")),
+                null);
+
+        assertEquals(List.of(424, 409, 424), statuses(result));
+        assertEquals("Rolled back, operation 1 failed.", result.getResults().get(0).getError());
+        assertEquals("Skipped, operation 1 failed.", result.getResults().get(2).getError());
+        assertEquals(Set.of("Masonry"), committed);
+        assertEquals(2, transactions);
+    }
+
+    @Test
+    void duplicateWithinTheBatchIsPinnedOnTheSecondOperation() {
+        BatchResult result = batchService.execute(List.of(create("Concrete"), create("Masonry"), create("Concrete")),
+                null);
+
+        assertEquals(List.of(424, 424, 409), statuses(result));
+        assertTrue(committed.isEmpty());
+    }
+
+    @Test
+    void databaseMessagesAreNotSentToTheClient() {
+        committed.add("Concrete");
+
+        BatchResult result = batchService.execute(List.of(create("Concrete")), null);
+
+        String error = result.getResults().get(0).getError();
+        assertFalse(error.contains("UK_resource_name"), error);
+        assertFalse(error.contains("insert into"), error);
+    }
+
+    @Test
+    void failingSubBatchKeepsEarlierOnesAndSkipsLaterOnes() {
+        committed.add("Wood");
+
+        BatchResult result = batchService.execute(List.of(create("Concrete"), create("Masonry"), create("Metals"),
+                create("Wood"), create("Thermal"), create("Openings")), 2);
+
+        assertEquals(List.of(201, 201, 424, 409, 424, 424), statuses(result));
+        assertEquals("Skipped, operation 3 failed.", result.getResults().get(5).getError());
+        assertEquals(Set.of("Concrete", "Masonry", "Wood"), committed);
+        assertEquals(2, result.getSucceeded());
+    }
+
+    @Test
+    void notFoundNeedsNoSecondRun() {
+        when(resourceService.updateName("Concrete", "Cast concrete"))
+                .thenThrow(new NullPointerException("Resource name: Concrete was not found in the database."));
+        BatchOperation rename = new BatchOperation();
+        rename.setOperation("resource/update/name");
+        rename.getParams().put("name", "Concrete");
+        rename.getParams().put("newname", "Cast concrete");
+
+        BatchResult result = batchService.execute(List.of(create("Masonry"), rename), null);
+
+        assertEquals(List.of(424, 404), statuses(result));
+        assertEquals(1, transactions);
+    }
+
+    private void flush() {
+        List<String> names = new ArrayList<>(saved);
+        saved.clear();
+        Set<String> written = new HashSet<>(flushed);
+        for (String name : names) {
+            if (committed.contains(name) || !written.add(name)) {
+                throw new PersistenceException("could not execute batch; SQL [insert into resource (resource_name)"
+                        + " values (?)]; constraint [UK_resource_name]");
+            }
+        }
+        flushed.addAll(names);
+    }
+
+    private static BatchOperation create(String name) {
+        BatchOperation operation = new BatchOperation();
+        operation.setOperation("resource/create");
+        operation.setBody(new ObjectMapper().createObjectNode().put("resourceName", name).put("resourceCode", name));
+        return operation;
+    }
+
+    private static List<Integer> statuses(BatchResult result) {
+        return result.getResults().stream().map(BatchOperationResult::getStatus).collect(Collectors.toList());
+    }
+
+    //Flushes what is left at commit, like Hibernate
+    private class Database extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            transactions++;
+            saved.clear();
+            flushed.clear();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            flush();
+            committed.addAll(flushed);
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            saved.clear();
+            flushed.clear();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.dto.BulkResult;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Chunks of 2 rows over a mocked EntityManager, failures are thrown by the flush of the second chunk
+class BulkWriterTest {
+
+    EntityManager entityManager = mock(EntityManager.class);
+    BulkWriter bulkWriter = new BulkWriter(new NoTransactions(), 50, 2);
+    List<String> rows = List.of("a", "b", "c", "d", "e");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkWriter, "entityManager", entityManager);
+    }
+
+    @Test
+    void allChunksCommitted() {
+        BulkResult result = bulkWriter.persistAll("rows", rows);
+
+        assertTrue(result.isComplete());
+        assertEquals(5, result.getRows());
+        assertEquals(3, result.getChunks());
+        assertNull(result.getError());
+    }
+
+    @Test
+    void conflictReportsTheFailedRowsWithoutTheDatabaseMessage() {
+        failSecondChunk(new PersistenceException(new ConstraintViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'c' for key 'resource.UK_name'"),
+                "UK_name")));
+
+        BulkResult result = bulkWriter.persistAll("rows", rows);
+
+        assertEquals(2, result.getRows());
+        assertEquals(1, result.getChunks());
+        assertEquals(2, result.getFailedFrom());
+        assertEquals(4, result.getFailedTo());
+        assertEquals("Rows 2 to 3 were not saved, one of them conflicts with stored data or another row,"
+                + " e.g. a name or code that is already taken.", result.getError());
+    }
+
+    @Test
+    void otherFailuresPointToTheLog() {
+        failSecondChunk(new PersistenceException("Communications link failure to db.internal:3306"));
+
+        BulkResult result = bulkWriter.persistAll("rows", rows);
+
+        assertEquals(2, result.getFailedFrom());
+        assertEquals("Rows 2 to 3 were not saved, see the server log.", result.getError());
+        assertFalse(result.getError().contains("db.internal"));
+    }
+
+    private void failSecondChunk(RuntimeException e) {
+        doNothing().doThrow(e).when(entityManager).flush();
+    }
+
+    private static class NoTransactions extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.model.Job;
+import com.itlize.korera.model.JobStatus;
+import com.itlize.korera.repository.JobRepository;
+import com.itlize.korera.service.JobContext;
+import com.itlize.korera.service.JobTask;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+//Queued jobs that never run, without starting the workers
+class JobServiceImplTest {
+
+    JobRepository jobRepository = mock(JobRepository.class);
+    Map<Integer, Job> jobs = new HashMap<>();
+    List<String> discarded = new ArrayList<>();
+    JobServiceImpl jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new JobServiceImpl(jobRepository, new NoTransactions(), new SimpleMeterRegistry(), "test",
+                1, 100, 2, Duration.ofSeconds(1), Duration.ofDays(7));
+        when(jobRepository.save(any())).thenAnswer(this::save);
+        when(jobRepository.findById(anyInt())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(
+                invocation.<Integer>getArgument(0))));
+    }
+
+    @Test
+    void cancellingAQueuedJobDiscardsItsTask() {
+        Job job = jobService.submit("import", task("first"));
+
+        jobService.cancel(job.getJobId());
+
+        assertEquals(List.of("first: Cancelled before it started."), discarded);
+        verify(jobRepository).finish(eq(job.getJobId()), eq(List.of(JobStatus.QUEUED)), eq(JobStatus.CANCELLED),
+                isNull(), eq("Cancelled before it started."), any());
+    }
+
+    @Test
+    void jobsStillQueuedAtShutdownAreDiscarded() {
+        jobService.submit("import", task("first"));
+        jobService.submit("import", task("second"));
+
+        jobService.destroy();
+
+        assertEquals(List.of("first: Still queued when node test stopped.",
+                "second: Still queued when node test stopped."), discarded);
+    }
+
+    @Test
+    void perUserLimitCountsJobsBeingSaved() {
+        jobService.submit("import", task("first"));
+        jobService.submit("import", task("second"));
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit("import", task("third")));
+    }
+
+    @Test
+    void failedInsertGivesTheSlotBack() {
+        doThrow(new IllegalStateException("database down")).doAnswer(this::save).when(jobRepository).save(any());
+
+        assertThrows(IllegalStateException.class, () -> jobService.submit("import", task("first")));
+        jobService.submit("import", task("second"));
+        jobService.submit("import", task("third"));
+
+        assertEquals(2, ReflectionTestUtils.getField(jobService, "queued"));
+    }
+
+    private Job save(InvocationOnMock invocation) {
+        ReentrantLock lock = (ReentrantLock) ReflectionTestUtils.getField(jobService, "lock");
+        assertFalse(lock.isLocked(), "The queue lock is held during the insert.");
+        Job job = invocation.getArgument(0);
+        job.setJobId(jobs.size() + 1);
+        jobs.put(job.getJobId(), job);
+        return job;
+    }
+
+    private JobTask task(String name) {
+        return new JobTask() {
+            @Override
+            public String run(JobContext context) {
+                return name;
+            }
+
+            @Override
+            public void discard(String reason) {
+                discarded.add(name + ": " + reason);
+            }
+        };
+    }
+
+    private static class NoTransactions extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
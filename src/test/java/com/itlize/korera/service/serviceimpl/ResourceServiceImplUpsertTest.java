@@ -0,0 +1,152 @@
+package com.itlize.korera.service.serviceimpl;
+
+import com.itlize.korera.dto.ResourceView;
+import com.itlize.korera.dto.UpsertResult;
+import com.itlize.korera.model.Resource;
+import com.itlize.korera.repository.ResourceUpsertRepository;
+import com.itlize.korera.repository.TableVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Counts and conflicts of upsertByCode, with rows changed by another transaction between its read and its write
+class ResourceServiceImplUpsertTest {
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+    Runnable betweenReadAndWrite = () -> { };
+    List<Integer> evicted = new ArrayList<>();
+    TableVersions tableVersions = mock(TableVersions.class);
+    ResourceServiceImpl resourceService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("upsert-service").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE resource (resource_id INT PRIMARY KEY,"
+                + " resource_name VARCHAR(255) NOT NULL UNIQUE, resource_code VARCHAR(255) NOT NULL UNIQUE,"
+                + " time_created TIMESTAMP, time_updated TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO resource VALUES (1, 'Concrete', '03 00 00', NULL, NULL)");
+        jdbcTemplate.update("INSERT INTO resource VALUES (2, 'Masonry', '04 00 00', NULL, NULL)");
+        ResourceUpsertRepository upsertRepository = new ResourceUpsertRepository(jdbcTemplate, 1000) {
+            int nextId = 100;
+            boolean read;
+
+            @Override
+            public List<ResourceView> findByCodesOrNames(List<String> codes, List<String> names) {
+                List<ResourceView> rows = super.findByCodesOrNames(codes, names);
+                if (!read) {
+                    read = true;
+                    betweenReadAndWrite.run();
+                }
+                return rows;
+            }
+
+            @Override
+            public Integer nextId(Resource resource) {
+                return nextId++;
+            }
+
+            @Override
+            public void evictCaches(Collection<Integer> updatedIds) {
+                evicted.addAll(updatedIds);
+            }
+        };
+        resourceService = new ResourceServiceImpl(null, null, null, null, null, upsertRepository, tableVersions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void countsInsertedUpdatedAndUnchangedRows() {
+        UpsertResult result = resourceService.upsertByCode(List.of(resource("Cast concrete", "03 00 00"),
+                resource("Masonry", "04 00 00"), resource("Metals", "05 00 00")));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertTrue(result.getConflicts().isEmpty());
+        assertEquals(List.of(1), evicted);
+        verify(tableVersions).invalidate(TableVersions.RESOURCE);
+    }
+
+    @Test
+    void nameOfAnotherCodeIsAConflict() {
+        UpsertResult result = resourceService.upsertByCode(List.of(resource("Masonry", "03 00 00"),
+                resource("Metals", "05 00 00"), resource("Metals", "06 00 00")));
+
+        assertEquals(List.of("03 00 00", "06 00 00"), result.getConflicts());
+        assertEquals(1, result.getInserted());
+        assertEquals("Concrete", nameOf("03 00 00"));
+    }
+
+    @Test
+    void nameTakenAfterTheReadIsAConflictAndLeavesTheOtherRowAlone() {
+        betweenReadAndWrite = () -> jdbcTemplate.update("INSERT INTO resource VALUES (50, 'Metals', '05 10 00',"
+                + " NULL, NULL)");
+
+        UpsertResult result = resourceService.upsertByCode(List.of(resource("Metals", "05 00 00")));
+
+        assertEquals(List.of("05 00 00"), result.getConflicts());
+        assertEquals(0, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals("Metals", nameOf("05 10 00"));
+        verifyNoInteractions(tableVersions);
+    }
+
+    @Test
+    void codeInsertedAfterTheReadIsAnUpdateOfThatRow() {
+        betweenReadAndWrite = () -> jdbcTemplate.update("INSERT INTO resource VALUES (50, 'Steel', '05 00 00',"
+                + " NULL, NULL)");
+
+        UpsertResult result = resourceService.upsertByCode(List.of(resource("Metals", "05 00 00")));
+
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals("Metals", nameOf("05 00 00"));
+        assertEquals(50, jdbcTemplate.queryForObject("SELECT resource_id FROM resource WHERE resource_code = '05 00 00'",
+                Integer.class));
+        assertEquals(List.of(50), evicted);
+    }
+
+    @Test
+    void lastRowOfACodeWins() {
+        UpsertResult result = resourceService.upsertByCode(List.of(resource("Metals", "05 00 00"),
+                resource("Steel", "05 00 00")));
+
+        assertEquals(1, result.getInserted());
+        assertEquals("Steel", nameOf("05 00 00"));
+    }
+
+    @Test
+    void rowWithoutCodeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> resourceService.upsertByCode(List.of(resource("Metals", null))));
+    }
+
+    private String nameOf(String code) {
+        return jdbcTemplate.queryForObject("SELECT resource_name FROM resource WHERE resource_code = ?",
+                String.class, code);
+    }
+
+    private static Resource resource(String name, String code) {
+        Resource resource = new Resource();
+        resource.setResourceName(name);
+        resource.setResourceCode(code);
+        return resource;
+    }
+}
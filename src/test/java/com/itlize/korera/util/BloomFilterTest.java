@@ -0,0 +1,45 @@
+package com.itlize.korera.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEveryAddedKeyUnderItsPrefix() {
+        BloomFilter filter = new BloomFilter(1000);
+        for (int i = 0; i < 1000; i++) {
+            filter.add('t', "key-" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain('t', "key-" + i));
+        }
+    }
+
+    @Test
+    void staysNearOnePercentFalsePositivesAtCapacity() {
+        BloomFilter filter = new BloomFilter(10000);
+        for (int i = 0; i < 10000; i++) {
+            filter.add('t', "key-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain('t', "other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void prefixSeparatesKinds() {
+        BloomFilter filter = new BloomFilter(1000);
+        filter.add('u', "alice");
+
+        assertTrue(filter.mightContain('u', "alice"));
+        assertFalse(filter.mightContain('t', "alice"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.itlize.korera.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("name,code\r\n\"a, \"\"b\"\"\",\"x\ny\"\r\n,c\nlast"), 100);
+
+        assertEquals(Arrays.asList("name", "code"), csv.next());
+        assertEquals(Arrays.asList("a, \"b\"", "x\ny"), csv.next());
+        assertEquals(3, csv.getLine() - 1);
+        assertEquals(Arrays.asList("", "c"), csv.next());
+        assertEquals(Collections.singletonList("last"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void rejectsUnclosedQuotesAndLongFields() {
+        assertThrows(IOException.class, () -> new CsvReader(new StringReader("\"open,field\n"), 100).next());
+        assertThrows(IOException.class, () -> new CsvReader(new StringReader("abcdef\n"), 5).next());
+    }
+}
@@ -0,0 +1,54 @@
+package com.itlize.korera.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    static final long START = 1_700_000_000_000L;
+    static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Test
+    void expiresEveryItemWithinOneTickOfItsDeadline() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, START);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            //Every tenth deadline lies beyond the top level and goes through the overflow list
+            long deadline = START + (long) (random.nextDouble() * (i % 10 == 0 ? 300 * DAY : 8 * DAY));
+            if (wheel.add(i, deadline)) {
+                deadlines.put(i, deadline);
+            }
+        }
+
+        for (long now = START; now <= START + 301 * DAY; now += 1000) {
+            long current = now;
+            wheel.advance(now, item -> {
+                long deadline = deadlines.remove(item);
+                assertTrue(deadline <= current && deadline > current - 2000);
+            });
+        }
+        assertTrue(deadlines.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void doesNotAddPastDeadlines() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, START);
+        List<String> expired = new ArrayList<>();
+
+        assertFalse(wheel.add("past", START - 1));
+        assertTrue(wheel.add("soon", START + 1500));
+        wheel.advance(START + 1999, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(START + 2000, expired::add);
+        assertEquals(List.of("soon"), expired);
+    }
+}